@@ -1,5 +1,49 @@
+import com.sun.management.GarbageCollectionNotificationInfo;
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
 import java.util.Scanner;
-import java.util.function.Function;
+import java.util.ServiceConfigurationError;
+import java.util.ServiceLoader;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongConsumer;
+import java.util.function.ToLongFunction;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+import javax.management.openmbean.CompositeData;
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
 
 /*COMPREHENSIVE FINDINGS & CONCLUSIONS*/
 
@@ -85,7 +129,11 @@ public class findPrimes {
             System.out.println("1. Find primes and display results");
             System.out.println("2. Run benchmark comparison");
             System.out.println("3. Analyze crossover points and efficiency transitions");
-            System.out.print("Choose option (1, 2, or 3): ");
+            System.out.println("4. Stream primes in batches (backpressured publisher)");
+            System.out.println("5. Build a compact prime archive file");
+            System.out.println("6. Count primes in ranges (rank index)");
+            System.out.println("7. Run concurrent throughput benchmark");
+            System.out.print("Choose option (1-7): ");
             
             int choice = scanner.nextInt();
             
@@ -113,26 +161,70 @@ public class findPrimes {
                 System.out.println("Choose crossover analysis type:");
                 System.out.println("1. Quick analysis (recommended for initial exploration)");
                 System.out.println("2. Comprehensive analysis (detailed, takes longer)");
-                System.out.print("Enter choice (1 or 2): ");
+                System.out.println("3. Large-scale prime-counting analysis (10M to 10B)");
+                System.out.print("Enter choice (1, 2, or 3): ");
                 int analysisType = scanner.nextInt();
                 
                 if (analysisType == 1) {
                     runQuickCrossoverAnalysis();
                 } else if (analysisType == 2) {
                     runComprehensiveCrossoverAnalysis();
+                } else if (analysisType == 3) {
+                    runLargeScaleCrossoverAnalysis();
                 } else {
                     System.out.println("Invalid analysis type.");
                 }
+            } else if (choice == 4) {
+                System.out.print("Enter the upper limit to stream primes to: ");
+                long limit = scanner.nextLong();
+                
+                streamPrimes(limit);
+            } else if (choice == 5) {
+                System.out.print("Enter the upper limit to archive primes to: ");
+                long limit = scanner.nextLong();
+                System.out.print("Enter the archive file path: ");
+                String path = scanner.next();
+                
+                try {
+                    buildPrimeArchive(limit, Paths.get(path));
+                } catch (IOException | IllegalArgumentException e) {
+                    System.out.println("Archive failed: " + e.getMessage());
+                }
+            } else if (choice == 6) {
+                System.out.print("Enter the upper limit for the sieve: ");
+                int limit = scanner.nextInt();
+                
+                runRangeQueries(scanner, limit);
+            } else if (choice == 7) {
+                System.out.print("Enter number of concurrent client threads: ");
+                int threads = scanner.nextInt();
+                System.out.print("Thread type (1 = platform, 2 = virtual): ");
+                boolean virtualThreads = scanner.nextInt() == 2;
+                System.out.print("Enter size mix as size:weight pairs (e.g. 10000:60,1000000:30,10000000:10): ");
+                String mix = scanner.next();
+                System.out.print("Enter measurement seconds per algorithm: ");
+                int seconds = scanner.nextInt();
+                
+                runThroughputBenchmarks(threads, virtualThreads, mix, seconds);
             } else {
                 System.out.println("Invalid choice. Please run the program again.");
             }
         }
+        
+        // Run with -DfindPrimes.metrics=true to collect and print sieve counters
+        if (SieveMetrics.ENABLED) {
+            System.out.println("\n=== SIEVE METRICS ===");
+            System.out.print(SieveMetrics.export());
+        }
     }
 
     public static boolean[] enhancedSieve(int n) {
         
         // Optimized Sieve of Eratosthenes implementation
         
+        SegmentEvent segmentEvent = SieveMetrics.beginSegment();
+        long marks = 0;
+        
         boolean[] isComposite = new boolean[n + 1];
         
         // Handle edge cases: 0 and 1 are not prime
@@ -143,6 +235,7 @@ public class findPrimes {
         for (int i = 4; i <= n; i += 2) {
             isComposite[i] = true;
         }
+        if (segmentEvent != null && n >= 4) marks += (n - 4) / 2 + 1;
         
         // Optimized sieve: only check odd numbers starting from 3
         // Only need to check up to sqrt(n) since larger factors would have been found already
@@ -155,9 +248,13 @@ public class findPrimes {
                 for (int j = i * i; j <= n; j += 2 * i) {
                     isComposite[j] = true;
                 }
+                if (segmentEvent != null) marks += (n - i * i) / (2 * i) + 1;
             }
         }
         
+        if (segmentEvent != null) {
+            SieveMetrics.endSegment(segmentEvent, "Enhanced", 0, n, marks, n + 1L + marks);
+        }
         return isComposite;
 
     }//end of findAllPrimes
@@ -167,6 +264,27 @@ public class findPrimes {
         // Ultra-Enhanced Sieve - Combines best elements from segmented approach
         // without the overhead of full segmentation for single-run efficiency
         
+        int sqrtLimit = (int) Math.sqrt(n);
+        
+        // OPTIMIZATION 1: Cache-friendly blocking for better memory access
+        // Process in cache-friendly chunks when beneficial (larger inputs)
+        int blockSize = n > 100000 ? Math.min(32768, sqrtLimit * 8) : n;
+        
+        // OPTIMIZATION 2: Pre-collect small primes for more efficient iteration
+        // (borrowed from segmented approach) - find small primes up to sqrt(n) first
+        BasePrimesEvent baseEvent = SieveMetrics.beginBasePrimes();
+        long[] baseWork = baseEvent != null ? new long[2] : null;
+        int[] smallPrimes = collectBasePrimes(Math.max(n, 0), baseWork);
+        int primeCount = smallPrimes.length;
+        if (baseEvent != null) {
+            SieveMetrics.endBasePrimes(baseEvent, "Ultra", sqrtLimit, primeCount, 
+                baseWork[0], baseWork[1]);
+        }
+        
+        // The full table is one segment: every small prime marks its multiples up to n
+        SegmentEvent tableEvent = SieveMetrics.beginSegment();
+        long marks = 0;
+        
         boolean[] isComposite = new boolean[n + 1];
         
         // Handle edge cases: 0 and 1 are not prime
@@ -174,45 +292,42 @@ public class findPrimes {
         if (n >= 1) isComposite[1] = true;
         
         // Early return for very small inputs to avoid overhead
-        if (n <= 2) return isComposite;
+        if (n <= 2) {
+            if (tableEvent != null) SieveMetrics.endSegment(tableEvent, "Ultra", 0, n, 0, n + 1L);
+            return isComposite;
+        }
         
         // Mark 2 as prime (only even prime)
         // Handle even numbers: mark all even numbers > 2 as composite
         for (int i = 4; i <= n; i += 2) {
             isComposite[i] = true;
         }
+        if (tableEvent != null && n >= 4) marks += (n - 4) / 2 + 1;
         
-        int sqrtLimit = (int) Math.sqrt(n);
-        
-        // OPTIMIZATION 1: Cache-friendly blocking for better memory access
-        // Process in cache-friendly chunks when beneficial (larger inputs)
-        int blockSize = n > 100000 ? Math.min(32768, sqrtLimit * 8) : n;
-        
-        // OPTIMIZATION 2: Pre-collect small primes for more efficient iteration
-        // (borrowed from segmented approach)
-        int[] smallPrimes = new int[sqrtLimit / 3 + 1]; // Estimate array size
-        int primeCount = 0;
-        
-        // Find small primes up to sqrt(n) first
-        for (int i = 3; i <= sqrtLimit; i += 2) {
-            if (!isComposite[i]) {
-                smallPrimes[primeCount++] = i;
-                
-                // OPTIMIZATION 3: Improved multiple marking with better start calculation
-                // Start from max(i*i, first odd multiple in range)
-                long start = (long) i * i;
-                if (start <= n) {
-                    for (long j = start; j <= n; j += 2L * i) {
-                        isComposite[(int) j] = true;
-                    }
+        for (int p = 0; p < primeCount; p++) {
+            int i = smallPrimes[p];
+            
+            // OPTIMIZATION 3: Improved multiple marking with better start calculation
+            // Start from max(i*i, first odd multiple in range)
+            long start = (long) i * i;
+            if (start <= n) {
+                for (long j = start; j <= n; j += 2L * i) {
+                    isComposite[(int) j] = true;
                 }
+                if (tableEvent != null) marks += (n - start) / (2L * i) + 1;
             }
         }
         
+        if (tableEvent != null) {
+            SieveMetrics.endSegment(tableEvent, "Ultra", 0, n, marks, n + 1L + marks);
+        }
+        
         // OPTIMIZATION 4: Block-wise processing for large arrays (cache optimization)
         if (n > blockSize && blockSize < n) {
             for (int blockStart = sqrtLimit + 1; blockStart <= n; blockStart += blockSize) {
                 int blockEnd = Math.min(blockStart + blockSize - 1, n);
+                SegmentEvent segmentEvent = SieveMetrics.beginSegment();
+                long blockMarks = 0;
                 
                 // Process this block with collected primes
                 for (int p = 0; p < primeCount; p++) {
@@ -226,6 +341,14 @@ public class findPrimes {
                     for (int j = firstMultiple; j <= blockEnd; j += 2 * prime) {
                         isComposite[j] = true;
                     }
+                    if (segmentEvent != null && firstMultiple <= blockEnd) {
+                        blockMarks += (blockEnd - firstMultiple) / (2 * prime) + 1;
+                    }
+                }
+                
+                if (segmentEvent != null) {
+                    SieveMetrics.endSegment(segmentEvent, "Ultra", blockStart, blockEnd, 
+                        blockMarks, blockEnd - blockStart + 1L + blockMarks);
                 }
             }
         }
@@ -239,6 +362,9 @@ public class findPrimes {
         // Standard Sieve of Eratosthenes implementation
         // No optimizations - the classic textbook version
         
+        SegmentEvent segmentEvent = SieveMetrics.beginSegment();
+        long marks = 0;
+        
         boolean[] isComposite = new boolean[n + 1];
         
         // Mark 0 and 1 as not prime
@@ -253,9 +379,13 @@ public class findPrimes {
                 for (int j = i * 2; j < isComposite.length; j += i) {
                     isComposite[j] = true;
                 }
+                if (segmentEvent != null && i * 2 <= n) marks += (n - i * 2) / i + 1;
             }
         }
         
+        if (segmentEvent != null) {
+            SieveMetrics.endSegment(segmentEvent, "Basic", 0, n, marks, n + 1L + marks);
+        }
         return isComposite;
         
     }//end of basicSieve
@@ -273,6 +403,9 @@ public class findPrimes {
         int sqrtN = (int) Math.sqrt(n);
         
         // Step 1: Find all primes up to sqrt(n) using simple sieve
+        BasePrimesEvent baseEvent = SieveMetrics.beginBasePrimes();
+        long baseMarks = 0;
+        
         boolean[] simplePrimes = new boolean[sqrtN + 1];
         simplePrimes[0] = simplePrimes[1] = true;
         
@@ -281,7 +414,17 @@ public class findPrimes {
                 for (int j = i * i; j <= sqrtN; j += i) {
                     simplePrimes[j] = true;
                 }
+                if (baseEvent != null && i * i <= sqrtN) baseMarks += (sqrtN - i * i) / i + 1;
+            }
+        }
+        
+        if (baseEvent != null) {
+            int basePrimes = 0;
+            for (int i = 2; i <= sqrtN; i++) {
+                if (!simplePrimes[i]) basePrimes++;
             }
+            SieveMetrics.endBasePrimes(baseEvent, "Segmented", sqrtN, 
+                basePrimes, baseMarks, sqrtN + 1L + baseMarks);
         }
         
         // Step 2: Use segmented approach for the rest
@@ -290,6 +433,9 @@ public class findPrimes {
         for (int low = 0; low <= n; low += segmentSize) {
             int high = Math.min(low + segmentSize - 1, n);
             
+            SegmentEvent segmentEvent = SieveMetrics.beginSegment();
+            long marks = 0;
+            
             // Create segment array
             boolean[] segment = new boolean[high - low + 1];
             
@@ -302,6 +448,7 @@ public class findPrimes {
                     for (int j = start; j <= high; j += p) {
                         segment[j - low] = true;
                     }
+                    if (segmentEvent != null && start <= high) marks += (high - start) / p + 1;
                 }
             }
             
@@ -312,498 +459,2820 @@ public class findPrimes {
                     isComposite[actualIndex] = segment[i];
                 }
             }
+            
+            if (segmentEvent != null) {
+                // Segment allocation, marks, then the copy's read and write
+                SieveMetrics.endSegment(segmentEvent, "Segmented", low, high, 
+                    marks, 3L * segment.length + marks);
+            }
         }
         
+        // The first segment's copy cleared these; 0 and 1 are not prime
+        if (n >= 0) isComposite[0] = true;
+        if (n >= 1) isComposite[1] = true;
+        
         return isComposite;
         
     }//end of segmentedSieve
 
-    // Benchmarking Analytics Methods
-    
-    public static void runBenchmarks(int limit, int runs) {
-        System.out.println("\n=== BENCHMARKING ANALYSIS ===");
-        System.out.println("Testing with limit: " + limit + ", Runs: " + runs);
-        System.out.println("=" + "=".repeat(70));
+    public static long segmentedCount(long n) {
         
-        // Benchmark Basic Sieve
-        BenchmarkResult basicResult = benchmarkMethod("Basic Sieve", 
-            n -> basicSieve(n), limit, runs);
+        // Segmented Sieve in count mode - the same simple sieve and segments, but each
+        // segment is counted instead of copied into an O(n) table, so n can go far past
+        // the boolean[] table limit in O(sqrt(n)) memory
         
-        // Benchmark Enhanced Sieve
-        BenchmarkResult enhancedResult = benchmarkMethod("Enhanced Sieve", 
-            n -> enhancedSieve(n), limit, runs);
-            
-        // Benchmark Ultra-Enhanced Sieve
-        BenchmarkResult ultraResult = benchmarkMethod("Ultra-Enhanced Sieve", 
-            n -> ultraEnhancedSieve(n), limit, runs);
-            
-        // Benchmark Segmented Sieve
-        BenchmarkResult segmentedResult = benchmarkMethod("Segmented Sieve", 
-            n -> segmentedSieve(n), limit, runs);
+        if (n < 2) return 0;
         
-        // Display four-way comparison
-        displayQuadComparison(basicResult, enhancedResult, ultraResult, segmentedResult);
-    }
-    
-    public static BenchmarkResult benchmarkMethod(String methodName, 
-            Function<Integer, boolean[]> method, int n, int runs) {
+        int sqrtN = (int) floorSqrt(n);
         
-        System.out.println("\nTesting: " + methodName);
-        System.out.println("-".repeat(30));
+        // Step 1: Find all primes up to sqrt(n) using simple sieve
+        BasePrimesEvent baseEvent = SieveMetrics.beginBasePrimes();
+        long baseMarks = 0;
         
-        long totalTime = 0;
-        long minTime = Long.MAX_VALUE;
-        long maxTime = Long.MIN_VALUE;
-        int primeCount = 0;
+        boolean[] simplePrimes = new boolean[sqrtN + 1];
+        simplePrimes[0] = simplePrimes[1] = true;
         
-        // Warm up JVM
-        for (int i = 0; i < 3; i++) {
-            method.apply(n);
+        // sqrtN passes 46340 here, so stop at i*i > sqrtN rather than let i*i overflow
+        for (int i = 2; (long) i * i <= sqrtN; i++) {
+            if (!simplePrimes[i]) {
+                for (int j = i * i; j <= sqrtN; j += i) {
+                    simplePrimes[j] = true;
+                }
+                if (baseEvent != null) baseMarks += (sqrtN - i * i) / i + 1;
+            }
         }
         
-        // Run benchmarks
-        for (int run = 1; run <= runs; run++) {
-            // Force garbage collection before each run
-            System.gc();
-            
-            // Measure memory before
-            Runtime runtime = Runtime.getRuntime();
-            long memoryBefore = runtime.totalMemory() - runtime.freeMemory();
+        if (baseEvent != null) {
+            int basePrimes = 0;
+            for (int i = 2; i <= sqrtN; i++) {
+                if (!simplePrimes[i]) basePrimes++;
+            }
+            SieveMetrics.endBasePrimes(baseEvent, "Segmented", sqrtN, 
+                basePrimes, baseMarks, sqrtN + 1L + baseMarks);
+        }
+        
+        // Step 2: Count each segment in one reusable array
+        int segmentSize = Math.max(sqrtN, 32768);
+        boolean[] segment = new boolean[segmentSize];
+        long count = 0;
+        
+        for (long low = 0; low <= n; low += segmentSize) {
+            long high = Math.min(low + segmentSize - 1, n);
+            int length = (int) (high - low + 1);
             
-            // Time the execution
-            long startTime = System.nanoTime();
-            boolean[] result = method.apply(n);
-            long endTime = System.nanoTime();
+            SegmentEvent segmentEvent = SieveMetrics.beginSegment();
+            long marks = 0;
             
-            // Measure memory after
-            long memoryAfter = runtime.totalMemory() - runtime.freeMemory();
+            Arrays.fill(segment, 0, length, false);
             
-            long executionTime = endTime - startTime;
-            totalTime += executionTime;
-            minTime = Math.min(minTime, executionTime);
-            maxTime = Math.max(maxTime, executionTime);
+            // Mark multiples of each prime in current segment
+            for (int p = 2; p <= sqrtN; p++) {
+                if (!simplePrimes[p]) {
+                    long start = Math.max((long) p * p, (low + p - 1) / p * p);
+                    
+                    for (long j = start; j <= high; j += p) {
+                        segment[(int) (j - low)] = true;
+                    }
+                    if (segmentEvent != null && start <= high) marks += (high - start) / p + 1;
+                }
+            }
             
-            // Count primes (only once)
-            if (run == 1) {
-                primeCount = countPrimes(result);
+            // 0 and 1 are not prime
+            for (int i = (int) Math.max(0, 2 - low); i < length; i++) {
+                if (!segment[i]) count++;
             }
             
-            System.out.printf("Run %2d: %8.3f ms, Memory: %8.2f KB%n", 
-                run, executionTime / 1_000_000.0, (memoryAfter - memoryBefore) / 1024.0);
+            if (segmentEvent != null) {
+                // Segment reset, marks, then the counting scan
+                SieveMetrics.endSegment(segmentEvent, "Segmented", low, high, 
+                    marks, 2L * length + marks);
+            }
         }
+        return count;
         
-        double avgTime = totalTime / (double) runs;
+    }//end of segmentedCount
+
+    public static boolean[] atkinSieve(int n) {
         
-        return new BenchmarkResult(methodName, avgTime, minTime, maxTime, 
-                                 totalTime, primeCount, n);
-    }
-    
-    public static int countPrimes(boolean[] isComposite) {
-        int count = 0;
-        for (int i = 2; i < isComposite.length; i++) {
-            if (!isComposite[i]) {
-                count++;
-            }
+        // Segmented Sieve of Atkin - toggles candidates via the three quadratic forms,
+        // one cache-sized block of the table at a time, then removes multiples of prime squares
+        
+        boolean[] isComposite = new boolean[n + 1];
+        if (n < 2) {
+            Arrays.fill(isComposite, true);
+            return isComposite;
         }
-        return count;
-    }
-    
-    public static void displayComparison(BenchmarkResult basic, BenchmarkResult enhanced) {
-        System.out.println("\n" + "=".repeat(60));
-        System.out.println("PERFORMANCE COMPARISON SUMMARY");
-        System.out.println("=".repeat(60));
         
-        System.out.printf("%-20s %15s %15s%n", "Metric", basic.methodName, enhanced.methodName);
-        System.out.println("-".repeat(60));
+        BasePrimesEvent baseEvent = SieveMetrics.beginBasePrimes();
+        long[] baseWork = baseEvent != null ? new long[2] : null;
+        int[] basePrimes = collectBasePrimes(n, baseWork);
+        if (baseEvent != null) {
+            SieveMetrics.endBasePrimes(baseEvent, "Atkin", (long) Math.sqrt(n), 
+                basePrimes.length, baseWork[0], baseWork[1]);
+        }
         
-        System.out.printf("%-20s %12.3f ms %12.3f ms%n", "Average Time:", 
-            basic.avgTime / 1_000_000.0, enhanced.avgTime / 1_000_000.0);
+        for (long low = 0; low <= n; low += ATKIN_BLOCK_SIZE) {
+            long high = Math.min(low + ATKIN_BLOCK_SIZE - 1, n);
+            SegmentEvent segmentEvent = SieveMetrics.beginSegment();
+            long marks = atkinBlock(low, high, basePrimes, isComposite, 0, segmentEvent != null);
             
-        System.out.printf("%-20s %12.3f ms %12.3f ms%n", "Best Time:", 
-            basic.minTime / 1_000_000.0, enhanced.minTime / 1_000_000.0);
-            
-        System.out.printf("%-20s %12.3f ms %12.3f ms%n", "Worst Time:", 
-            basic.maxTime / 1_000_000.0, enhanced.maxTime / 1_000_000.0);
+            if (segmentEvent != null) {
+                SieveMetrics.endSegment(segmentEvent, "Atkin", low, high, marks, high - low + 1 + marks);
+            }
+        }
+        
+        // The forms never produce 2 or 3
+        isComposite[2] = false;
+        if (n >= 3) isComposite[3] = false;
+        
+        return isComposite;
+        
+    }//end of atkinSieve
+
+    public static long atkinCount(long n) {
+        
+        // Sieve of Atkin in count mode - the same blocks, sieved into one reusable buffer
+        // and counted, so n can go far past the boolean[] table limit in O(sqrt(n)) memory
+        
+        if (n < 2) return 0;
+        
+        BasePrimesEvent baseEvent = SieveMetrics.beginBasePrimes();
+        long[] baseWork = baseEvent != null ? new long[2] : null;
+        int[] basePrimes = collectBasePrimes(n, baseWork);
+        if (baseEvent != null) {
+            SieveMetrics.endBasePrimes(baseEvent, "Atkin", floorSqrt(n), 
+                basePrimes.length, baseWork[0], baseWork[1]);
+        }
+        
+        // Every block walks all x up to sqrt(high), so wider blocks keep that O(sqrt(n))
+        // per-block cost small next to the block itself once n is large
+        int blockSize = (int) Math.max(ATKIN_BLOCK_SIZE, Math.min(1 << 22, 16 * floorSqrt(n)));
+        boolean[] block = new boolean[blockSize];
+        
+        // The forms never produce 2 or 3
+        long count = n >= 3 ? 2 : 1;
+        for (long low = 0; low <= n; low += blockSize) {
+            long high = Math.min(low + blockSize - 1, n);
+            SegmentEvent segmentEvent = SieveMetrics.beginSegment();
+            long marks = atkinBlock(low, high, basePrimes, block, low, segmentEvent != null);
             
-        System.out.printf("%-20s %15d %15d%n", "Primes Found:", 
-            basic.primeCount, enhanced.primeCount);
+            int length = (int) (high - low + 1);
+            for (int i = 0; i < length; i++) {
+                if (!block[i]) count++;
+            }
             
-        System.out.printf("%-20s %15d %15d%n", "Input Size:", 
-            basic.inputSize, enhanced.inputSize);
+            if (segmentEvent != null) {
+                SieveMetrics.endSegment(segmentEvent, "Atkin", low, high, marks, 2L * length + marks);
+            }
+        }
+        return count;
         
-        // Calculate speedup
-        double speedup = basic.avgTime / enhanced.avgTime;
-        System.out.println("\n" + "=".repeat(60));
-        System.out.printf("PERFORMANCE IMPROVEMENT: %.2fx speedup%n", speedup);
+    }//end of atkinCount
+    
+    // One Atkin block: values in [low, high] land in out[value - offset]. Returns the
+    // toggles and square crossings performed when countMarks is set, otherwise 0
+    private static long atkinBlock(long low, long high, int[] basePrimes, boolean[] out, 
+            long offset, boolean countMarks) {
+        long marks = 0;
+        
+        // Everything starts composite; solutions of the forms flip their value
+        Arrays.fill(out, (int) (low - offset), (int) (high - offset) + 1, true);
+        
+        // 4x^2 + y^2 = m with m mod 12 in {1, 5}: only odd y can qualify
+        for (long x = 1; 4 * x * x <= high; x++) {
+            long base = 4 * x * x;
+            long y = ceilSqrt(Math.max(0, low - base));
+            long yMax = floorSqrt(high - base);
+            if ((y & 1) == 0) y++;
+            if (countMarks && y <= yMax) marks += (yMax - y) / 2 + 1;
+            
+            for (; y <= yMax; y += 2) {
+                long m = base + y * y;
+                int r = (int) (m % 12);
+                if (r == 1 || r == 5) {
+                    int i = (int) (m - offset);
+                    out[i] = !out[i];
+                }
+            }
+        }
         
-        if (speedup > 1) {
-            System.out.printf("Enhanced Sieve is %.1f%% faster than Basic Sieve%n", 
-                (speedup - 1) * 100);
-        } else {
-            System.out.printf("Basic Sieve is %.1f%% faster than Enhanced Sieve%n", 
-                (1/speedup - 1) * 100);
+        // 3x^2 + y^2 = m with m mod 12 == 7: only odd x and even y can qualify
+        for (long x = 1; 3 * x * x <= high; x += 2) {
+            long base = 3 * x * x;
+            long y = Math.max(2, ceilSqrt(Math.max(0, low - base)));
+            long yMax = floorSqrt(high - base);
+            if ((y & 1) == 1) y++;
+            if (countMarks && y <= yMax) marks += (yMax - y) / 2 + 1;
+            
+            for (; y <= yMax; y += 2) {
+                long m = base + y * y;
+                if (m % 12 == 7) {
+                    int i = (int) (m - offset);
+                    out[i] = !out[i];
+                }
+            }
         }
         
-        // Memory efficiency estimation
-        long basicMemory = (long) basic.inputSize * 1; // boolean array
-        long enhancedMemory = (long) enhanced.inputSize * 1; // same array size
-        System.out.printf("Estimated Memory Usage: ~%.2f KB each%n", 
-            basicMemory / 1024.0);
+        // 3x^2 - y^2 = m with x > y and m mod 12 == 11: x and y of opposite parity
+        for (long x = 2; 2 * x * x + 2 * x - 1 <= high; x++) {
+            long base = 3 * x * x;
+            long y = Math.max(1, ceilSqrt(Math.max(0, base - high)));
+            long yMax = Math.min(x - 1, base - low < 0 ? -1 : floorSqrt(base - low));
+            if (((x + y) & 1) == 0) y++;
+            if (countMarks && y <= yMax) marks += (yMax - y) / 2 + 1;
+            
+            for (; y <= yMax; y += 2) {
+                long m = base - y * y;
+                if (m % 12 == 11) {
+                    int i = (int) (m - offset);
+                    out[i] = !out[i];
+                }
+            }
+        }
         
-        System.out.println("=".repeat(60));
+        // Remove numbers divisible by the square of a prime >= 5
+        for (int p : basePrimes) {
+            if (p < 5) continue;
+            long square = (long) p * p;
+            if (square > high) break;
+            
+            long start = Math.max(square, (low + square - 1) / square * square);
+            for (long j = start; j <= high; j += square) {
+                out[(int) (j - offset)] = true;
+            }
+            if (countMarks && start <= high) marks += (high - start) / square + 1;
+        }
+        return marks;
     }
-    
-    public static void displayTripleComparison(BenchmarkResult basic, 
-            BenchmarkResult enhanced, BenchmarkResult segmented) {
+
+    public static boolean[] wheelSieve(int n) {
         
-        System.out.println("\n" + "=".repeat(80));
-        System.out.println("COMPREHENSIVE PERFORMANCE COMPARISON");
-        System.out.println("=".repeat(80));
+        // Segmented Eratosthenes on a wheel of up to 2*3*5*7*11*13 = 30030 - each cache-sized
+        // block starts as a copy of the wheel pattern, and the remaining primes only cross
+        // off multiples p*w where w is itself coprime to the wheel. Still O(n log log n);
+        // pritchardSieve below is the sublinear dynamic wheel
         
-        System.out.printf("%-20s %15s %15s %15s%n", "Metric", 
-            basic.methodName, enhanced.methodName, segmented.methodName);
-        System.out.println("-".repeat(80));
+        boolean[] isComposite = new boolean[n + 1];
+        if (n < 2) {
+            Arrays.fill(isComposite, true);
+            return isComposite;
+        }
         
-        System.out.printf("%-20s %12.3f ms %12.3f ms %12.3f ms%n", "Average Time:", 
-            basic.avgTime / 1_000_000.0, enhanced.avgTime / 1_000_000.0, 
-            segmented.avgTime / 1_000_000.0);
-            
-        System.out.printf("%-20s %12.3f ms %12.3f ms %12.3f ms%n", "Best Time:", 
-            basic.minTime / 1_000_000.0, enhanced.minTime / 1_000_000.0,
-            segmented.minTime / 1_000_000.0);
-            
-        System.out.printf("%-20s %12.3f ms %12.3f ms %12.3f ms%n", "Worst Time:", 
-            basic.maxTime / 1_000_000.0, enhanced.maxTime / 1_000_000.0,
-            segmented.maxTime / 1_000_000.0);
+        BasePrimesEvent baseEvent = SieveMetrics.beginBasePrimes();
+        long[] baseWork = baseEvent != null ? new long[2] : null;
+        Wheel wheel = new Wheel(n, baseWork);
+        if (baseEvent != null) {
+            SieveMetrics.endBasePrimes(baseEvent, "Wheel", floorSqrt(n), 
+                wheel.basePrimeCount, baseWork[0], baseWork[1]);
+        }
+        
+        for (long low = 0; low <= n; low += wheel.blockSize) {
+            int length = (int) Math.min(wheel.blockSize, n + 1 - low);
+            SegmentEvent segmentEvent = SieveMetrics.beginSegment();
+            long marks = wheel.sieveBlock(low, length, isComposite, 0, segmentEvent != null);
             
-        System.out.printf("%-20s %15d %15d %15d%n", "Primes Found:", 
-            basic.primeCount, enhanced.primeCount, segmented.primeCount);
+            if (segmentEvent != null) {
+                SieveMetrics.endSegment(segmentEvent, "Wheel", low, low + length - 1, 
+                    marks, length + marks);
+            }
+        }
         
-        // Performance analysis
-        System.out.println("\n" + "=".repeat(80));
-        System.out.println("PERFORMANCE ANALYSIS:");
-        System.out.println("-".repeat(80));
+        // The pattern marks the wheel primes themselves and leaves 1 unmarked
+        for (int w = 0; w < wheel.wheelPrimeCount && WHEEL_PRIMES[w] <= n; w++) {
+            isComposite[WHEEL_PRIMES[w]] = false;
+        }
+        isComposite[1] = true;
+        
+        return isComposite;
         
-        // Find the fastest algorithm
-        double fastestTime = Math.min(basic.avgTime, 
-                            Math.min(enhanced.avgTime, segmented.avgTime));
-        String fastest = "";
-        if (fastestTime == basic.avgTime) fastest = "Basic Sieve";
-        else if (fastestTime == enhanced.avgTime) fastest = "Enhanced Sieve";
-        else fastest = "Segmented Sieve";
+    }//end of wheelSieve
+
+    public static long wheelCount(long n) {
+        
+        // Wheel sieve in count mode - the same blocks, rolled into one reusable buffer
+        // and counted, so n can go far past the boolean[] table limit in O(sqrt(n)) memory
         
-        System.out.println("🏆 WINNER: " + fastest + " (fastest average time)");
+        if (n < 2) return 0;
         
-        // Calculate speedups relative to basic sieve
-        double enhancedSpeedup = basic.avgTime / enhanced.avgTime;
-        double segmentedSpeedup = basic.avgTime / segmented.avgTime;
+        BasePrimesEvent baseEvent = SieveMetrics.beginBasePrimes();
+        long[] baseWork = baseEvent != null ? new long[2] : null;
+        Wheel wheel = new Wheel(n, baseWork);
+        if (baseEvent != null) {
+            SieveMetrics.endBasePrimes(baseEvent, "Wheel", floorSqrt(n), 
+                wheel.basePrimeCount, baseWork[0], baseWork[1]);
+        }
         
-        System.out.printf("📈 Enhanced Sieve: %.2fx %s than Basic%n", 
-            enhancedSpeedup > 1 ? enhancedSpeedup : 1/enhancedSpeedup,
-            enhancedSpeedup > 1 ? "faster" : "slower");
+        boolean[] block = new boolean[wheel.blockSize];
+        long count = 0;
+        for (long low = 0; low <= n; low += wheel.blockSize) {
+            int length = (int) Math.min(wheel.blockSize, n + 1 - low);
+            SegmentEvent segmentEvent = SieveMetrics.beginSegment();
+            long marks = wheel.sieveBlock(low, length, block, low, segmentEvent != null);
+            
+            for (int i = 0; i < length; i++) {
+                if (!block[i]) count++;
+            }
             
-        System.out.printf("📈 Segmented Sieve: %.2fx %s than Basic%n", 
-            segmentedSpeedup > 1 ? segmentedSpeedup : 1/segmentedSpeedup,
-            segmentedSpeedup > 1 ? "faster" : "slower");
+            if (segmentEvent != null) {
+                SieveMetrics.endSegment(segmentEvent, "Wheel", low, low + length - 1, 
+                    marks, 2L * length + marks);
+            }
+        }
         
-        // Memory efficiency notes
-        System.out.println("\n💾 MEMORY EFFICIENCY NOTES:");
-        System.out.printf("   • Basic & Enhanced: O(n) = ~%.1f KB%n", 
-            basic.inputSize / 1024.0);
-        System.out.printf("   • Segmented: O(√n) working memory = ~%.1f KB%n", 
-            Math.sqrt(basic.inputSize) / 1024.0);
+        // The pattern marks the wheel primes themselves and leaves 1 unmarked
+        for (int w = 0; w < wheel.wheelPrimeCount && WHEEL_PRIMES[w] <= n; w++) {
+            count++;
+        }
+        return count - 1;
         
-        System.out.println("\n🔍 ALGORITHM STRENGTHS:");
-        System.out.println("   • Basic Sieve: Simple, predictable, good for small inputs");
-        System.out.println("   • Enhanced Sieve: Optimized loops, good for medium inputs");
-        System.out.println("   • Segmented Sieve: Cache-friendly, excellent for large inputs");
+    }//end of wheelCount
+    
+    // Wheel pattern plus, for every sieving prime beyond the wheel, the next multiple
+    // to cross off and the wheel spoke it sits on - carried from one block to the next
+    private static final class Wheel {
+        final int circumference;
+        final int wheelPrimeCount;
+        final int blockSize;
+        final int basePrimeCount;
+        
+        private final boolean[] pattern;
+        private final int[] gaps;
+        private final int spokeCount;
+        private final int[] sievingPrimes;
+        private final long[] nextMultiple;
+        private final int[] nextSpoke;
+        private final int sievingCount;
+        
+        // Base-prime work (collectBasePrimes plus the pattern) is added to baseWork if given
+        Wheel(long n, long[] baseWork) {
+            
+            // Grow the wheel while its circumference stays within n and a cache-friendly size
+            int circumference = 1;
+            int wheelPrimeCount = 0;
+            while (wheelPrimeCount < WHEEL_PRIMES.length) {
+                long grown = (long) circumference * WHEEL_PRIMES[wheelPrimeCount];
+                if (grown > Math.min(n, MAX_WHEEL_CIRCUMFERENCE)) break;
+                circumference = (int) grown;
+                wheelPrimeCount++;
+            }
+            if (wheelPrimeCount == 0) {
+                circumference = 2;
+                wheelPrimeCount = 1;
+            }
+            this.circumference = circumference;
+            this.wheelPrimeCount = wheelPrimeCount;
+            
+            // Wheel pattern (multiples of the wheel primes) and its spokes (coprime residues)
+            pattern = new boolean[circumference];
+            for (int w = 0; w < wheelPrimeCount; w++) {
+                for (int j = 0; j < circumference; j += WHEEL_PRIMES[w]) {
+                    pattern[j] = true;
+                }
+            }
+            int[] spokes = new int[circumference];
+            int spokeCount = 0;
+            int[] spokeIndex = new int[circumference];
+            for (int i = 0; i < circumference; i++) {
+                if (!pattern[i]) {
+                    spokeIndex[i] = spokeCount;
+                    spokes[spokeCount++] = i;
+                }
+            }
+            this.spokeCount = spokeCount;
+            gaps = new int[spokeCount];
+            for (int s = 0; s < spokeCount; s++) {
+                int next = s + 1 < spokeCount ? spokes[s + 1] : circumference + spokes[0];
+                gaps[s] = next - spokes[s];
+            }
+            
+            // Sieving primes beyond the wheel; each starts crossing off at p*p
+            int largestWheelPrime = WHEEL_PRIMES[wheelPrimeCount - 1];
+            int[] basePrimes = collectBasePrimes(n, baseWork);
+            if (baseWork != null) baseWork[1] += circumference;
+            basePrimeCount = basePrimes.length;
+            sievingPrimes = new int[basePrimes.length];
+            nextMultiple = new long[basePrimes.length];
+            nextSpoke = new int[basePrimes.length];
+            int sievingCount = 0;
+            for (int p : basePrimes) {
+                if (p <= largestWheelPrime) continue;
+                sievingPrimes[sievingCount] = p;
+                nextMultiple[sievingCount] = (long) p * p;
+                nextSpoke[sievingCount] = spokeIndex[p % circumference];
+                sievingCount++;
+            }
+            this.sievingCount = sievingCount;
+            
+            // Blocks are whole turns of the wheel so every block starts at residue 0
+            blockSize = circumference * Math.max(1, WHEEL_BLOCK_SIZE / circumference);
+        }
         
-        System.out.println("=".repeat(80));
+        // Sieves the next block, [low, low + length), into out[value - offset]; blocks must
+        // come in order. Returns the crossings performed when countMarks is set, otherwise 0
+        long sieveBlock(long low, int length, boolean[] out, long offset, boolean countMarks) {
+            long marks = 0;
+            long high = low + length - 1;
+            int start = (int) (low - offset);
+            
+            // Roll the wheel across the block
+            for (int rolled = 0; rolled < length; rolled += circumference) {
+                System.arraycopy(pattern, 0, out, start + rolled, 
+                    Math.min(circumference, length - rolled));
+            }
+            
+            for (int i = 0; i < sievingCount; i++) {
+                long m = nextMultiple[i];
+                if (m > high) {
+                    if ((long) sievingPrimes[i] * sievingPrimes[i] > high) break;
+                    continue;
+                }
+                
+                long p = sievingPrimes[i];
+                int s = nextSpoke[i];
+                while (m <= high) {
+                    out[(int) (m - offset)] = true;
+                    m += p * gaps[s];
+                    if (++s == spokeCount) s = 0;
+                    if (countMarks) marks++;
+                }
+                nextMultiple[i] = m;
+                nextSpoke[i] = s;
+            }
+            return marks;
+        }
     }
     
-    public static void displayQuadComparison(BenchmarkResult basic, BenchmarkResult enhanced, 
-            BenchmarkResult ultra, BenchmarkResult segmented) {
+    public static boolean[] pritchardSieve(int n) {
         
-        System.out.println("\n" + "=".repeat(90));
-        System.out.println("COMPREHENSIVE 4-WAY PERFORMANCE COMPARISON");
-        System.out.println("=".repeat(90));
+        // Pritchard's dynamic wheel sieve - W holds the numbers up to `length` coprime to
+        // every prime found so far, as a doubly-linked list over the odd numbers. For each
+        // prime p <= sqrt(n), W is rolled out to min(p*length, n) and then p*w is deleted
+        // for every w in W, largest w first. Each survivor costs O(1) per roll or delete,
+        // so the whole sieve is O(n / log log n) additions.
         
-        System.out.printf("%-20s %15s %15s %15s %15s%n", "Metric", 
-            basic.methodName, enhanced.methodName, ultra.methodName, segmented.methodName);
-        System.out.println("-".repeat(90));
+        boolean[] isComposite = new boolean[n + 1];
+        Arrays.fill(isComposite, true);
+        if (n < 2) return isComposite;
         
-        System.out.printf("%-20s %12.3f ms %12.3f ms %12.3f ms %12.3f ms%n", "Average Time:", 
-            basic.avgTime / 1_000_000.0, enhanced.avgTime / 1_000_000.0, 
-            ultra.avgTime / 1_000_000.0, segmented.avgTime / 1_000_000.0);
-            
-        System.out.printf("%-20s %12.3f ms %12.3f ms %12.3f ms %12.3f ms%n", "Best Time:", 
-            basic.minTime / 1_000_000.0, enhanced.minTime / 1_000_000.0,
-            ultra.minTime / 1_000_000.0, segmented.minTime / 1_000_000.0);
-            
-        System.out.printf("%-20s %12.3f ms %12.3f ms %12.3f ms %12.3f ms%n", "Worst Time:", 
-            basic.maxTime / 1_000_000.0, enhanced.maxTime / 1_000_000.0,
-            ultra.maxTime / 1_000_000.0, segmented.maxTime / 1_000_000.0);
-            
-        System.out.printf("%-20s %15d %15d %15d %15d%n", "Primes Found:", 
-            basic.primeCount, enhanced.primeCount, ultra.primeCount, segmented.primeCount);
+        SegmentEvent segmentEvent = SieveMetrics.beginSegment();
+        long inserts = 0;
+        long deletes = 0;
         
-        // Performance analysis
-        System.out.println("\n" + "=".repeat(90));
-        System.out.println("PERFORMANCE RANKING & ANALYSIS:");
-        System.out.println("-".repeat(90));
+        // Links between odd members, indexed by v >> 1; 0 ends the list in either direction
+        int[] next = new int[(n >> 1) + 1];
+        int[] prev = new int[(n >> 1) + 1];
+        
+        // W = {1} with length 2: the wheel of the prime 2
+        isComposite[1] = false;
+        int tail = 1;
+        long length = 2;
         
-        // Find the fastest algorithm
-        double[] times = {basic.avgTime, enhanced.avgTime, ultra.avgTime, segmented.avgTime};
-        String[] names = {"Basic", "Enhanced", "Ultra-Enhanced", "Segmented"};
+        int[] sieved = new int[(int) Math.sqrt(n) / 2 + 2];
+        int sievedCount = 0;
+        int p = 3;
         
-        // Simple ranking
-        for (int rank = 1; rank <= 4; rank++) {
-            double minTime = Double.MAX_VALUE;
-            int minIndex = -1;
-            for (int i = 0; i < times.length; i++) {
-                if (times[i] < minTime && times[i] > 0) {
-                    minTime = times[i];
-                    minIndex = i;
+        while (true) {
+            boolean sieving = p != 0 && (long) p * p <= n;
+            long target = sieving ? Math.min(p * length, n) : n;
+            
+            // Roll the wheel: W shifted by length, 2*length, ... up to target. Only the
+            // members below the old length are copied, never the ones just appended
+            if (length < target) {
+                for (long base = length; base < target; base += length) {
+                    for (int w = 1; w != 0 && w <= length; w = next[w >> 1]) {
+                        long v = base + w;
+                        if (v > target) break;
+                        int member = (int) v;
+                        isComposite[member] = false;
+                        next[tail >> 1] = member;
+                        prev[member >> 1] = tail;
+                        tail = member;
+                        if (segmentEvent != null) inserts++;
+                    }
                 }
+                length = target;
             }
-            if (minIndex >= 0) {
-                double speedup = basic.avgTime / times[minIndex];
-                System.out.printf("%d. %s: %.2fx speedup over Basic%n", 
-                    rank, names[minIndex], speedup);
-                times[minIndex] = 0; // Mark as processed
+            if (!sieving) break;
+            
+            // Delete p*w for every w in W with p*w <= length, from the largest w down to 1.
+            // Going down, each p*w removed is above every w still to be visited
+            int w = (int) (length / p);
+            if ((w & 1) == 0) w--;
+            while (isComposite[w]) w -= 2;
+            
+            for (; w != 0; w = prev[w >> 1]) {
+                int multiple = p * w;
+                isComposite[multiple] = true;
+                int before = prev[multiple >> 1];
+                int after = next[multiple >> 1];
+                next[before >> 1] = after;
+                if (after != 0) {
+                    prev[after >> 1] = before;
+                } else {
+                    tail = before;
+                }
+                if (segmentEvent != null) deletes++;
             }
+            
+            // p left W with w = 1; the next prime is now the member after 1
+            sieved[sievedCount++] = p;
+            p = next[0];
         }
         
-        // Ultra-Enhanced specific analysis
-        System.out.println("\n🚀 ULTRA-ENHANCED INNOVATIONS:");
-        System.out.println("   • Cache-friendly blocking for large inputs (>100K)");
-        System.out.println("   • Pre-collected prime array reduces repeated checks");
-        System.out.println("   • Improved start calculation with long arithmetic");
-        System.out.println("   • Block-wise processing borrowed from segmented approach");
-        System.out.println("   • Early return optimization for tiny inputs");
-        
-        double ultraSpeedup = basic.avgTime / ultra.avgTime;
-        double enhancedSpeedup = basic.avgTime / enhanced.avgTime;
-        double improvement = ultraSpeedup / enhancedSpeedup;
+        isComposite[1] = true;
+        isComposite[2] = false;
+        for (int i = 0; i < sievedCount; i++) {
+            isComposite[sieved[i]] = false;
+        }
         
-        System.out.printf("\n📈 ULTRA vs ENHANCED: %.2fx additional improvement%n", improvement);
+        if (segmentEvent != null) {
+            // Table fill, then a table byte and two links per insert or delete
+            SieveMetrics.endSegment(segmentEvent, "Pritchard", 0, n, deletes, 
+                n + 1L + 9 * (inserts + deletes));
+        }
+        return isComposite;
         
-        System.out.println("=".repeat(90));
+    }//end of pritchardSieve
+    
+    private static final int ATKIN_BLOCK_SIZE = 1 << 18;
+    private static final int WHEEL_BLOCK_SIZE = 1 << 18;
+    private static final int MAX_WHEEL_CIRCUMFERENCE = 30030;    // 2*3*5*7*11*13
+    private static final int[] WHEEL_PRIMES = {2, 3, 5, 7, 11, 13};
+    
+    private static long floorSqrt(long v) {
+        long r = (long) Math.sqrt((double) v);
+        while (r * r > v) r--;
+        while ((r + 1) * (r + 1) <= v) r++;
+        return r;
     }
     
-    // Crossover Analysis Methods
+    private static long ceilSqrt(long v) {
+        long r = floorSqrt(v);
+        return r * r < v ? r + 1 : r;
+    }
+
+    // Segment helpers shared by the streaming and archive code paths
     
-    public static void runQuickCrossoverAnalysis() {
-        System.out.println("\n🔍 QUICK CROSSOVER ANALYSIS");
-        System.out.println("=" + "=".repeat(60));
-        System.out.println("Testing strategic input sizes to identify efficiency transitions...\n");
+    public static int[] collectBasePrimes(long limit) {
+        return collectBasePrimes(limit, null);
+    }
+    
+    public static int[] collectBasePrimes(long limit, long[] work) {
         
-        // Strategic test points based on typical crossover patterns
-        int[] testSizes = {1000, 5000, 10000, 25000, 50000, 100000, 250000, 500000, 1000000};
-        int runs = 3; // Fewer runs for quick analysis
+        // Odd primes up to sqrt(limit) - enough to sieve any segment below limit.
+        // Uses its own uninstrumented sieve so the work is booked to the calling engine:
+        // when work is given, work[0] += marks and work[1] += bytes touched
         
-        System.out.printf("%-12s %-12s %-12s %-12s %-15s%n", 
-            "Input Size", "Basic (ms)", "Enhanced (ms)", "Segmented (ms)", "Winner");
-        System.out.println("-".repeat(75));
+        requireBasePrimeTable(limit);
+        int sqrtLimit = (int) floorSqrt(limit);
         
-        for (int size : testSizes) {
-            CrossoverDataPoint dataPoint = analyzeSingleSize(size, runs);
-            System.out.printf("%-12d %-12.3f %-12.3f %-12.3f %-15s%n",
-                size, dataPoint.basicTime, dataPoint.enhancedTime, 
-                dataPoint.segmentedTime, dataPoint.winner);
+        boolean[] isComposite = new boolean[sqrtLimit + 1];
+        long marks = 0;
+        for (int i = 3; i * i <= sqrtLimit; i += 2) {
+            if (!isComposite[i]) {
+                for (int j = i * i; j <= sqrtLimit; j += 2 * i) {
+                    isComposite[j] = true;
+                }
+                marks += (sqrtLimit - i * i) / (2 * i) + 1;
+            }
         }
         
-        analyzeAndReportCrossovers(testSizes, runs);
-    }
-    
-    public static void runComprehensiveCrossoverAnalysis() {
-        System.out.println("\n🔬 COMPREHENSIVE CROSSOVER ANALYSIS");
-        System.out.println("=" + "=".repeat(70));
-        System.out.println("Detailed analysis with fine-grained input sizes...\n");
+        int[] primes = new int[sqrtLimit / 2 + 1];
+        int count = 0;
+        for (int i = 3; i <= sqrtLimit; i += 2) {
+            if (!isComposite[i]) {
+                primes[count++] = i;
+            }
+        }
         
-        // More comprehensive range with finer granularity
-        int[] testSizes = {
-            500, 1000, 2500, 5000, 7500, 10000, 15000, 20000, 25000, 
-            35000, 50000, 75000, 100000, 150000, 200000, 300000, 
-            500000, 750000, 1000000, 1500000, 2000000
-        };
-        int runs = 5; // More runs for statistical accuracy
+        if (work != null) {
+            work[0] += marks;
+            work[1] += sqrtLimit + 1L + marks;
+        }
+        return Arrays.copyOf(primes, count);
+    }
+    
+    public static void requireBasePrimeTable(long limit) {
         
-        System.out.printf("%-12s %-12s %-12s %-12s %-15s %-12s%n", 
-            "Input Size", "Basic (ms)", "Enhanced (ms)", "Segmented (ms)", "Winner", "Speedup");
-        System.out.println("-".repeat(90));
+        // Rejects limits whose sqrt(limit) base-prime tables cannot be allocated up front,
+        // rather than failing with OutOfMemoryError partway through a sieve
         
-        CrossoverDataPoint[] dataPoints = new CrossoverDataPoint[testSizes.length];
+        if (limit < 0) {
+            throw new IllegalArgumentException("limit must be >= 0: " + limit);
+        }
+        long sqrtLimit = floorSqrt(limit);
+        if (sqrtLimit > EngineCapabilities.TABLE_MAX_RANGE) {
+            throw new IllegalArgumentException("limit " + limit + " needs base primes up to " 
+                + sqrtLimit + ", beyond the largest table");
+        }
         
-        for (int i = 0; i < testSizes.length; i++) {
-            int size = testSizes[i];
-            CrossoverDataPoint dataPoint = analyzeSingleSize(size, runs);
-            dataPoints[i] = dataPoint;
+        // boolean[sqrtLimit + 1] plus the int[sqrtLimit / 2 + 1] candidate array
+        long needed = (sqrtLimit + 1) + 4 * (sqrtLimit / 2 + 1);
+        Runtime runtime = Runtime.getRuntime();
+        long available = runtime.maxMemory() - (runtime.totalMemory() - runtime.freeMemory());
+        if (needed > available) {
+            throw new IllegalArgumentException(String.format(
+                "limit %d needs about %d MB for its base-prime table, only %d MB of heap available", 
+                limit, needed >> 20, available >> 20));
+        }
+    }
+    
+    public static long[] primesInRange(long low, long high, int[] basePrimes, boolean[] segment) {
+        
+        // Sieves [low, high] into the caller's scratch segment and collects the primes,
+        // so callers can walk ranges far beyond int limits with O(segment) memory
+        
+        int length = (int) (high - low + 1);
+        Arrays.fill(segment, 0, length, false);
+        
+        for (int p : basePrimes) {
+            long square = (long) p * p;
+            if (square > high) break;
+            
+            // First odd multiple of p in range, never below p*p
+            long start = Math.max(square, (low + p - 1) / p * p);
+            if ((start & 1) == 0) start += p;
             
-            System.out.printf("%-12d %-12.3f %-12.3f %-12.3f %-15s %-12.2fx%n",
-                size, dataPoint.basicTime, dataPoint.enhancedTime, 
-                dataPoint.segmentedTime, dataPoint.winner, dataPoint.speedup);
+            for (long j = start; j <= high; j += 2L * p) {
+                segment[(int) (j - low)] = true;
+            }
         }
         
-        // Detailed crossover analysis
-        identifyDetailedCrossovers(dataPoints);
-        analyzeScalingBehavior(dataPoints);
+        long[] primes = new long[length / 2 + 2];
+        int count = 0;
+        if (low <= 2 && high >= 2) primes[count++] = 2;
+        
+        for (long i = Math.max(3, low | 1); i <= high; i += 2) {
+            if (!segment[(int) (i - low)]) {
+                primes[count++] = i;
+            }
+        }
+        return Arrays.copyOf(primes, count);
     }
     
-    public static CrossoverDataPoint analyzeSingleSize(int size, int runs) {
-        // Quick benchmark with reduced output
-        BenchmarkResult basic = benchmarkMethodQuiet("Basic", n -> basicSieve(n), size, runs);
-        BenchmarkResult enhanced = benchmarkMethodQuiet("Enhanced", n -> enhancedSieve(n), size, runs);
-        BenchmarkResult ultra = benchmarkMethodQuiet("Ultra", n -> ultraEnhancedSieve(n), size, runs);
-        BenchmarkResult segmented = benchmarkMethodQuiet("Segmented", n -> segmentedSieve(n), size, runs);
-        
-        // Determine winner among all four
-        double minTime = Math.min(Math.min(basic.avgTime, enhanced.avgTime), 
-                                 Math.min(ultra.avgTime, segmented.avgTime));
-        String winner;
-        double speedup;
+    // Reactive Streaming Methods
+    
+    public static void streamPrimes(long limit) {
+        System.out.println("\n=== STREAMING PRIMES UP TO " + limit + " ===");
+        
+        PrimePublisher publisher;
+        try {
+            publisher = new PrimePublisher(limit);
+        } catch (IllegalArgumentException e) {
+            System.out.println("Cannot stream: " + e.getMessage());
+            return;
+        }
+        CountDownLatch done = new CountDownLatch(1);
         
-        if (minTime == basic.avgTime) {
-            winner = "Basic";
-            speedup = Math.max(Math.max(enhanced.avgTime, ultra.avgTime), segmented.avgTime) / basic.avgTime;
-        } else if (minTime == enhanced.avgTime) {
-            winner = "Enhanced";
-            speedup = basic.avgTime / enhanced.avgTime;
-        } else if (minTime == ultra.avgTime) {
-            winner = "Ultra";
-            speedup = basic.avgTime / ultra.avgTime;
-        } else {
-            winner = "Segmented";
-            speedup = basic.avgTime / segmented.avgTime;
+        // Demo consumer: pulls one batch at a time so the sieve never runs ahead of it
+        publisher.subscribe(new Flow.Subscriber<long[]>() {
+            private Flow.Subscription subscription;
+            private int batches = 0;
+            private long total = 0;
+            
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+                this.subscription = subscription;
+                subscription.request(1);
+            }
+            
+            @Override
+            public void onNext(long[] batch) {
+                batches++;
+                total += batch.length;
+                System.out.printf("Batch %4d: %7d primes [%d .. %d]%n", 
+                    batches, batch.length, batch[0], batch[batch.length - 1]);
+                subscription.request(1);
+            }
+            
+            @Override
+            public void onError(Throwable throwable) {
+                System.out.println("Stream failed: " + throwable);
+                done.countDown();
+            }
+            
+            @Override
+            public void onComplete() {
+                System.out.printf("Stream complete: %d primes in %d batches%n", total, batches);
+                done.countDown();
+            }
+        });
+        
+        try {
+            done.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+    // Rank Index Methods
+    
+    public static void runRangeQueries(Scanner scanner, int limit) {
+        System.out.println("\n=== RANGE COUNT QUERIES ===");
+        
+        long startTime = System.nanoTime();
+        boolean[] isComposite = enhancedSieve(limit);
+        long sieveTime = System.nanoTime() - startTime;
+        
+        startTime = System.nanoTime();
+        PrimeRankIndex index = PrimeRankIndex.build(isComposite);
+        long indexTime = System.nanoTime() - startTime;
+        
+        System.out.printf("Sieve: %.3f ms, Index: %.3f ms, Index overhead: %d bytes (%.2f%%)%n",
+            sieveTime / 1_000_000.0, indexTime / 1_000_000.0, index.overheadBytes(),
+            100.0 * index.overheadBytes() / isComposite.length);
+        System.out.println("Primes up to " + limit + ": " + index.countUpTo(limit));
+        
+        while (true) {
+            System.out.print("Enter a range 'a b' to count, or a negative number to stop: ");
+            long a = scanner.nextLong();
+            if (a < 0) break;
+            long b = scanner.nextLong();
+            if (b < a || b > limit) {
+                System.out.println("Range must satisfy 0 <= a <= b <= " + limit);
+                continue;
+            }
+            
+            int count = index.countInRange((int) a, (int) b);
+            System.out.printf("Primes in [%d, %d]: %d", a, b, count);
+            if (count > 0) {
+                int before = a == 0 ? 0 : index.countUpTo((int) a - 1);
+                System.out.printf(" (first: %d, last: %d)", 
+                    index.nthPrime(before + 1), index.nthPrime(before + count));
+            }
+            System.out.println();
+        }
+    }
+    
+    // Prime Archive Methods
+    
+    public static void buildPrimeArchive(long limit, Path path) throws IOException {
+        System.out.println("\n=== BUILDING PRIME ARCHIVE ===");
+        
+        long startTime = System.nanoTime();
+        long primeCount;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, 
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            primeCount = PrimeArchive.write(channel, limit, PrimeArchive.DEFAULT_CHECKPOINT_INTERVAL);
         }
+        long encodeTime = System.nanoTime() - startTime;
+        long fileSize = Files.size(path);
+        
+        System.out.printf("Primes archived:   %d%n", primeCount);
+        System.out.printf("Archive size:      %.2f MB (%.3f bytes/prime)%n", 
+            fileSize / (1024.0 * 1024.0), primeCount == 0 ? 0.0 : fileSize / (double) primeCount);
+        System.out.printf("Encode time:       %.3f ms%n", encodeTime / 1_000_000.0);
+        
+        // Streaming decode of the whole file, to compare against re-sieving
+        long[] decoded = new long[1];
+        startTime = System.nanoTime();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            PrimeArchive.decode(channel, prime -> decoded[0]++);
+        }
+        System.out.printf("Decode time:       %.3f ms (%d primes)%n", 
+            (System.nanoTime() - startTime) / 1_000_000.0, decoded[0]);
         
-        return new CrossoverDataPoint(size, 
-            basic.avgTime / 1_000_000.0, enhanced.avgTime / 1_000_000.0, 
-            segmented.avgTime / 1_000_000.0, winner, speedup);
+        try (PrimeArchive archive = PrimeArchive.open(path)) {
+            if (archive.count() > 0) {
+                System.out.printf("Largest prime:     %d (prime #%d)%n", 
+                    archive.nthPrime(archive.count()), archive.count());
+            }
+        }
     }
     
-    // Quiet benchmarking method (no console output)
-    public static BenchmarkResult benchmarkMethodQuiet(String methodName, 
-            Function<Integer, boolean[]> method, int n, int runs) {
+    // Sieve Engine Registry
+    
+    private static List<SieveEngine> engines;
+    
+    // Built-in engines first, then any SieveEngine providers listed on the class path
+    // in META-INF/services/findPrimes$SieveEngine (duplicate names are ignored)
+    public static synchronized List<SieveEngine> registeredEngines() {
+        if (engines == null) {
+            List<SieveEngine> found = new ArrayList<>(List.of(
+                new BasicSieveEngine(), new EnhancedSieveEngine(), 
+                new UltraEnhancedSieveEngine(), new SegmentedSieveEngine(),
+                new AtkinSieveEngine(), new WheelSieveEngine(), new PritchardSieveEngine()));
+            
+            Iterator<SieveEngine> providers = ServiceLoader.load(SieveEngine.class).iterator();
+            while (true) {
+                try {
+                    if (!providers.hasNext()) break;
+                    SieveEngine engine = providers.next();
+                    if (found.stream().noneMatch(e -> e.name().equals(engine.name()))) {
+                        found.add(engine);
+                    }
+                } catch (ServiceConfigurationError e) {
+                    System.out.println("Skipping sieve engine provider: " + e.getMessage());
+                }
+            }
+            engines = Collections.unmodifiableList(found);
+        }
+        return engines;
+    }
+    
+    // Registered engines that can handle an input of size n
+    public static List<SieveEngine> enginesFor(long n) {
+        List<SieveEngine> capable = new ArrayList<>();
+        for (SieveEngine engine : registeredEngines()) {
+            if (engine.capabilities().maxRange >= n) {
+                capable.add(engine);
+            }
+        }
+        return capable;
+    }
+    
+    // Compares each engine's table with enhancedSieve; returns false on any mismatch
+    public static boolean verifyEngines(List<SieveEngine> engines, int n) {
+        boolean[] reference = enhancedSieve(n);
+        boolean allMatch = true;
+        
+        for (SieveEngine engine : engines) {
+            boolean[] table = engine.sieve(n);
+            int mismatch = Arrays.mismatch(reference, table);
+            if (mismatch >= 0) {
+                allMatch = false;
+                System.out.printf("⚠️  %s disagrees with Enhanced Sieve at %d (n = %d)%n", 
+                    engine.name(), mismatch, n);
+            }
+        }
+        
+        if (allMatch) {
+            System.out.printf("✅ All %d engines verified against Enhanced Sieve (n = %d)%n", 
+                engines.size(), n);
+        }
+        return allMatch;
+    }
+    
+    // Benchmarking Analytics Methods
+    
+    public static void runBenchmarks(int limit, int runs) {
+        System.out.println("\n=== BENCHMARKING ANALYSIS ===");
+        System.out.println("Testing with limit: " + limit + ", Runs: " + runs);
+        System.out.println("=" + "=".repeat(70));
+        
+        verifyEngines(enginesFor(limit), limit);
+        
+        // Benchmark every registered engine that supports this limit
+        List<BenchmarkResult> results = new ArrayList<>();
+        for (SieveEngine engine : enginesFor(limit)) {
+            results.add(benchmarkMethod(engine.name(), engine, limit, runs));
+        }
+        
+        // Display N-way comparison
+        displayComparison(results);
+    }
+    
+    // Timed through engine.timedSieve, whose clock reads sit in each engine class around a
+    // direct call to its static sieve - the shared (megamorphic) interface dispatch happens
+    // outside the timed region
+    public static BenchmarkResult benchmarkMethod(String methodName, 
+            SieveEngine engine, int n, int runs) {
+        
+        System.out.println("\nTesting: " + methodName);
+        System.out.println("-".repeat(30));
         
         long totalTime = 0;
         long minTime = Long.MAX_VALUE;
         long maxTime = Long.MIN_VALUE;
         int primeCount = 0;
         
-        // Warm up
-        for (int i = 0; i < 2; i++) {
-            method.apply(n);
+        // Warm up JVM
+        long[] elapsed = new long[1];
+        for (int i = 0; i < 3; i++) {
+            engine.timedSieve(n, elapsed);
         }
         
-        // Run tests
-        for (int run = 0; run < runs; run++) {
+        // Run benchmarks
+        for (int run = 1; run <= runs; run++) {
+            // Force garbage collection before each run
             System.gc();
             
-            long startTime = System.nanoTime();
-            boolean[] result = method.apply(n);
-            long endTime = System.nanoTime();
+            // Measure memory before
+            Runtime runtime = Runtime.getRuntime();
+            long memoryBefore = runtime.totalMemory() - runtime.freeMemory();
+            
+            // Time the execution
+            boolean[] result = engine.timedSieve(n, elapsed);
+            
+            // Measure memory after
+            long memoryAfter = runtime.totalMemory() - runtime.freeMemory();
             
-            long executionTime = endTime - startTime;
+            long executionTime = elapsed[0];
             totalTime += executionTime;
             minTime = Math.min(minTime, executionTime);
             maxTime = Math.max(maxTime, executionTime);
             
-            if (run == 0) {
-                primeCount = countPrimes(result);
+            // Count primes (only once)
+            if (run == 1) {
+                primeCount = countPrimes(engine.shortName(), result);
             }
+            
+            System.out.printf("Run %2d: %8.3f ms, Memory: %8.2f KB%n", 
+                run, executionTime / 1_000_000.0, (memoryAfter - memoryBefore) / 1024.0);
         }
         
         double avgTime = totalTime / (double) runs;
-        return new BenchmarkResult(methodName, avgTime, minTime, maxTime, 
+        
+        return new BenchmarkResult(methodName, engine, avgTime, minTime, maxTime, 
                                  totalTime, primeCount, n);
     }
     
-    public static void analyzeAndReportCrossovers(int[] testSizes, int runs) {
-        System.out.println("\n📊 CROSSOVER ANALYSIS SUMMARY:");
-        System.out.println("=" + "=".repeat(50));
+    public static int countPrimes(boolean[] isComposite) {
+        int count = 0;
+        for (int i = 2; i < isComposite.length; i++) {
+            if (!isComposite[i]) {
+                count++;
+            }
+        }
+        return count;
+    }
+    
+    // countPrimes with the scan recorded as the given engine's count phase
+    public static int countPrimes(String engine, boolean[] isComposite) {
+        CountEvent countEvent = SieveMetrics.beginCount();
+        int count = countPrimes(isComposite);
+        if (countEvent != null) {
+            SieveMetrics.endCount(countEvent, engine, isComposite.length, count);
+        }
+        return count;
+    }
+    
+    public static void displayComparison(List<BenchmarkResult> results) {
+        if (results.isEmpty()) {
+            System.out.println("No registered sieve engine supports this input size.");
+            return;
+        }
         
-        System.out.println("🎯 PREDICTED CROSSOVER POINTS:");
-        System.out.println("• Basic → Enhanced: ~5,000 - 15,000");
-        System.out.println("• Enhanced → Segmented: ~100,000 - 500,000");
-        System.out.println("• Cache effects become significant: >250,000");
+        BenchmarkResult baseline = results.get(0);
         
-        System.out.println("\n💡 OPTIMIZATION INSIGHTS:");
-        System.out.println("• For applications with mixed input sizes, consider adaptive selection");
-        System.out.println("• Memory-constrained environments favor segmented approach earlier");
-        System.out.println("• JIT compilation may shift crossover points in long-running applications");
+        System.out.println("\n" + "=".repeat(90));
+        System.out.println("COMPREHENSIVE " + results.size() + "-WAY PERFORMANCE COMPARISON");
+        System.out.println("=".repeat(90));
+        
+        System.out.printf("%-24s %15s %15s %15s %15s%n", 
+            "Algorithm", "Average Time", "Best Time", "Worst Time", "Primes Found");
+        System.out.println("-".repeat(90));
+        
+        for (BenchmarkResult r : results) {
+            System.out.printf("%-24s %12.3f ms %12.3f ms %12.3f ms %15d%n", r.methodName,
+                r.avgTime / 1_000_000.0, r.minTime / 1_000_000.0, 
+                r.maxTime / 1_000_000.0, r.primeCount);
+        }
+        
+        for (BenchmarkResult r : results) {
+            if (r.primeCount != baseline.primeCount) {
+                System.out.printf("⚠️  %s found %d primes, %s found %d%n", r.methodName, 
+                    r.primeCount, baseline.methodName, baseline.primeCount);
+            }
+        }
+        
+        // Performance analysis
+        System.out.println("\n" + "=".repeat(90));
+        System.out.println("PERFORMANCE RANKING & ANALYSIS:");
+        System.out.println("-".repeat(90));
+        
+        List<BenchmarkResult> ranked = new ArrayList<>(results);
+        ranked.sort((a, b) -> Double.compare(a.avgTime, b.avgTime));
+        for (int rank = 1; rank <= ranked.size(); rank++) {
+            BenchmarkResult r = ranked.get(rank - 1);
+            System.out.printf("%d. %s: %.2fx speedup over %s%n", 
+                rank, r.methodName, baseline.avgTime / r.avgTime, baseline.methodName);
+        }
+        
+        System.out.println("\n💾 MEMORY & CAPABILITIES:");
+        for (BenchmarkResult r : results) {
+            EngineCapabilities caps = r.engine.capabilities();
+            System.out.printf("   • %s: %s, max n = %,d%s%n", r.methodName, 
+                caps.outputType.description, caps.maxRange, caps.parallel ? ", parallel" : "");
+        }
+        System.out.printf("   • Result table: ~%.1f KB each%n", baseline.inputSize / 1024.0);
+        
+        System.out.println("=".repeat(90));
     }
     
-    public static void identifyDetailedCrossovers(CrossoverDataPoint[] dataPoints) {
-        System.out.println("\n🔍 DETAILED CROSSOVER IDENTIFICATION:");
-        System.out.println("-".repeat(60));
+    // Concurrent Throughput Methods
+    
+    public static void runThroughputBenchmarks(int threads, boolean virtualThreads, 
+            String mix, int seconds) {
+        
+        // Parse "size:weight,size:weight" into cumulative weights for sampling
+        String[] entries = mix.split(",");
+        int[] sizes = new int[entries.length];
+        int[] cumulativeWeights = new int[entries.length];
+        int totalWeight = 0;
+        for (int i = 0; i < entries.length; i++) {
+            String[] parts = entries[i].trim().split(":");
+            sizes[i] = Integer.parseInt(parts[0].trim());
+            totalWeight += parts.length > 1 ? Integer.parseInt(parts[1].trim()) : 1;
+            cumulativeWeights[i] = totalWeight;
+        }
         
-        String prevWinner = dataPoints[0].winner;
-        for (int i = 1; i < dataPoints.length; i++) {
-            if (!dataPoints[i].winner.equals(prevWinner)) {
-                System.out.printf("📈 Crossover detected: %s → %s at input size ~%d%n",
-                    prevWinner, dataPoints[i].winner, dataPoints[i].inputSize);
-                prevWinner = dataPoints[i].winner;
-            }
+        System.out.println("\n=== CONCURRENT THROUGHPUT ANALYSIS ===");
+        System.out.printf("Threads: %d (%s), Mix: %s, Duration: %ds per algorithm%n", 
+            threads, virtualThreads ? "virtual" : "platform", mix, seconds);
+        System.out.println("=" + "=".repeat(70));
+        
+        List<ThroughputResult> results = new ArrayList<>();
+        for (SieveEngine engine : enginesFor(Arrays.stream(sizes).max().getAsInt())) {
+            results.add(benchmarkThroughput(engine, threads, virtualThreads, 
+                sizes, cumulativeWeights, seconds));
         }
+        
+        displayThroughputComparison(results);
     }
     
-    public static void analyzeScalingBehavior(CrossoverDataPoint[] dataPoints) {
-        System.out.println("\n📈 SCALING BEHAVIOR ANALYSIS:");
-        System.out.println("-".repeat(50));
+    public static ThroughputResult benchmarkThroughput(SieveEngine engine, 
+            int threads, boolean virtualThreads, int[] sizes, int[] cumulativeWeights, int seconds) {
+        
+        System.out.println("\nTesting: " + engine.name());
+        
+        // Warm up under the same load so the measured window sees compiled code
+        runClients(engine, threads, virtualThreads, sizes, cumulativeWeights, 
+            Math.max(1, seconds / 3) * 1_000_000_000L, null);
+        
+        List<Long> pauses = new ArrayList<>();
+        List<Runnable> unregister = listenForGcPauses(pauses);
+        ThroughputResult result = new ThroughputResult(engine.name());
+        try {
+            runClients(engine, threads, virtualThreads, sizes, cumulativeWeights, 
+                seconds * 1_000_000_000L, result);
+        } finally {
+            unregister.forEach(Runnable::run);
+        }
         
-        // Analyze how algorithms scale with input size
-        System.out.println("Algorithm performance trends as input size increases:");
+        synchronized (pauses) {
+            for (long pause : pauses) {
+                result.gcPauses.record(pause);
+            }
+        }
         
-        // Calculate growth rates between first and last measurements
-        double basicGrowth = dataPoints[dataPoints.length-1].basicTime / dataPoints[0].basicTime;
-        double enhancedGrowth = dataPoints[dataPoints.length-1].enhancedTime / dataPoints[0].enhancedTime;
-        double segmentedGrowth = dataPoints[dataPoints.length-1].segmentedTime / dataPoints[0].segmentedTime;
+        System.out.printf("%d ops, %.1f ops/sec, p99 %.3f ms%n", result.latencies.totalCount(), 
+            result.opsPerSecond(), result.latencies.percentile(99.0) / 1_000_000.0);
+        return result;
+    }
+    
+    private static void runClients(SieveEngine engine, int threads, 
+            boolean virtualThreads, int[] sizes, int[] cumulativeWeights, long durationNanos, 
+            ThroughputResult result) {
+        
+        com.sun.management.ThreadMXBean threadBean = 
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        int totalWeight = cumulativeWeights[cumulativeWeights.length - 1];
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch finished = new CountDownLatch(threads);
+        
+        ExecutorService executor = newClientExecutor(threads, virtualThreads);
+        long[] window = new long[2];
+        for (int t = 0; t < threads; t++) {
+            executor.execute(() -> {
+                LatencyHistogram latencies = new LatencyHistogram();
+                long allocatedBefore = threadBean.getCurrentThreadAllocatedBytes();
+                try {
+                    start.await();
+                    long deadline = window[0] + durationNanos;
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    long[] elapsed = new long[1];
+                    
+                    while (System.nanoTime() < deadline) {
+                        // Pick a size according to the configured mix
+                        int pick = random.nextInt(totalWeight);
+                        int i = 0;
+                        while (cumulativeWeights[i] <= pick) i++;
+                        
+                        engine.timedSieve(sizes[i], elapsed);
+                        latencies.record(elapsed[0]);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    long allocatedAfter = threadBean.getCurrentThreadAllocatedBytes();
+                    if (result != null) {
+                        result.merge(latencies, allocatedBefore < 0 || allocatedAfter < 0 
+                            ? -1 : allocatedAfter - allocatedBefore);
+                    }
+                    finished.countDown();
+                }
+            });
+        }
         
-        System.out.printf("• Basic Sieve: %.1fx slower (linear scaling)%n", basicGrowth);
-        System.out.printf("• Enhanced Sieve: %.1fx slower (optimized scaling)%n", enhancedGrowth);
-        System.out.printf("• Segmented Sieve: %.1fx slower (cache-efficient scaling)%n", segmentedGrowth);
+        long totalAllocatedBefore = totalAllocatedBytes(threadBean);
+        window[0] = System.nanoTime();
+        start.countDown();
+        try {
+            finished.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        window[1] = System.nanoTime();
+        long totalAllocatedAfter = totalAllocatedBytes(threadBean);
+        executor.shutdown();
+        
+        if (result != null) {
+            result.elapsedNanos = window[1] - window[0];
+            // Prefer the process-wide figure; the per-thread sum is the pre-21 fallback
+            if (totalAllocatedBefore >= 0 && totalAllocatedAfter >= 0) {
+                result.allocatedBytes = totalAllocatedAfter - totalAllocatedBefore;
+            }
+        }
     }
     
-    // Helper class for crossover analysis
-    static class CrossoverDataPoint {
-        int inputSize;
-        double basicTime;
-        double enhancedTime;
-        double segmentedTime;
-        String winner;
-        double speedup;
+    // Bytes allocated by all live and terminated threads, virtual ones included (JDK 21+),
+    // or -1 when unavailable. Looked up reflectively like newVirtualThreadPerTaskExecutor
+    private static long totalAllocatedBytes(com.sun.management.ThreadMXBean threadBean) {
+        try {
+            return (Long) com.sun.management.ThreadMXBean.class
+                .getMethod("getTotalThreadAllocatedBytes").invoke(threadBean);
+        } catch (ReflectiveOperationException | UnsupportedOperationException e) {
+            return -1;
+        }
+    }
+    
+    private static ExecutorService newClientExecutor(int threads, boolean virtualThreads) {
+        if (virtualThreads) {
+            // Looked up reflectively so the tool still builds and runs on pre-21 JDKs
+            try {
+                return (ExecutorService) Executors.class
+                    .getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+            } catch (ReflectiveOperationException e) {
+                System.out.println("Virtual threads need Java 21+, using platform threads");
+            }
+        }
+        return Executors.newFixedThreadPool(threads);
+    }
+    
+    private static List<Runnable> listenForGcPauses(List<Long> pauses) {
+        List<Runnable> unregister = new ArrayList<>();
+        NotificationListener listener = (notification, handback) -> {
+            if (GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION
+                    .equals(notification.getType())) {
+                GarbageCollectionNotificationInfo info = GarbageCollectionNotificationInfo
+                    .from((CompositeData) notification.getUserData());
+                
+                // Only stop-the-world collections count as pauses. ZGC and Shenandoah report
+                // whole concurrent cycles through their "Cycles" beans as "end of GC cycle";
+                // G1's "end of concurrent GC pause" (Remark, Cleanup) is a real pause
+                if (info.getGcName().endsWith("Cycles") 
+                        || "end of GC cycle".equals(info.getGcAction())) {
+                    return;
+                }
+                synchronized (pauses) {
+                    pauses.add(TimeUnit.MILLISECONDS.toNanos(info.getGcInfo().getDuration()));
+                }
+            }
+        };
         
-        CrossoverDataPoint(int inputSize, double basicTime, double enhancedTime, 
-                          double segmentedTime, String winner, double speedup) {
-            this.inputSize = inputSize;
-            this.basicTime = basicTime;
-            this.enhancedTime = enhancedTime;
-            this.segmentedTime = segmentedTime;
-            this.winner = winner;
-            this.speedup = speedup;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            if (gc instanceof NotificationEmitter) {
+                NotificationEmitter emitter = (NotificationEmitter) gc;
+                emitter.addNotificationListener(listener, null, null);
+                unregister.add(() -> {
+                    try {
+                        emitter.removeNotificationListener(listener);
+                    } catch (javax.management.ListenerNotFoundException ignored) {
+                        // already gone
+                    }
+                });
+            }
         }
+        return unregister;
     }
     
-    // Helper class to store benchmark results
-    static class BenchmarkResult {
-        String methodName;
-        double avgTime;
-        long minTime;
-        long maxTime;
-        long totalTime;
-        int primeCount;
-        int inputSize;
+    public static void displayThroughputComparison(List<ThroughputResult> results) {
+        System.out.println("\n" + "=".repeat(130));
+        System.out.println("CONCURRENT THROUGHPUT COMPARISON");
+        System.out.println("=".repeat(130));
+        
+        System.out.printf("%-24s %10s %9s %9s %9s %9s %9s %11s %6s %12s %12s%n", 
+            "Algorithm", "Ops/sec", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "Max ms",
+            "Alloc MB/s", "Pauses", "Pause tot ms", "Pause max ms");
+        System.out.println("-".repeat(130));
+        
+        ThroughputResult best = null;
+        for (ThroughputResult r : results) {
+            double allocRate = r.allocatedBytes < 0 ? Double.NaN 
+                : r.allocatedBytes / (1024.0 * 1024.0) / (r.elapsedNanos / 1e9);
+            System.out.printf("%-24s %10.1f %9.3f %9.3f %9.3f %9.3f %9.3f %11.1f %6d %12.1f %12.1f%n",
+                r.methodName, r.opsPerSecond(), 
+                r.latencies.percentile(50.0) / 1_000_000.0,
+                r.latencies.percentile(90.0) / 1_000_000.0,
+                r.latencies.percentile(99.0) / 1_000_000.0,
+                r.latencies.percentile(99.9) / 1_000_000.0,
+                r.latencies.max() / 1_000_000.0,
+                allocRate, r.gcPauses.totalCount(),
+                r.gcPauses.totalValue() / 1_000_000.0, r.gcPauses.max() / 1_000_000.0);
+            
+            if (best == null || r.opsPerSecond() > best.opsPerSecond()) best = r;
+        }
         
-        BenchmarkResult(String methodName, double avgTime, long minTime, long maxTime, 
-                       long totalTime, int primeCount, int inputSize) {
-            this.methodName = methodName;
-            this.avgTime = avgTime;
-            this.minTime = minTime;
-            this.maxTime = maxTime;
-            this.totalTime = totalTime;
-            this.primeCount = primeCount;
-            this.inputSize = inputSize;
+        System.out.println("-".repeat(130));
+        if (best != null) {
+            System.out.println("🏆 HIGHEST THROUGHPUT UNDER CONTENTION: " + best.methodName);
+        }
+        System.out.println("=".repeat(130));
+    }
+    
+    // Crossover Analysis Methods
+    
+    public static void runQuickCrossoverAnalysis() {
+        System.out.println("\n🔍 QUICK CROSSOVER ANALYSIS");
+        System.out.println("=" + "=".repeat(60));
+        System.out.println("Testing strategic input sizes to identify efficiency transitions...\n");
+        
+        // Strategic test points based on typical crossover patterns
+        int[] testSizes = {1000, 5000, 10000, 25000, 50000, 100000, 250000, 500000, 1000000};
+        int runs = 3; // Fewer runs for quick analysis
+        List<SieveEngine> engines = enginesFor(testSizes[testSizes.length - 1]);
+        
+        verifyEngines(engines, testSizes[testSizes.length - 1]);
+        printCrossoverHeader(engines, false);
+        
+        for (int size : testSizes) {
+            CrossoverDataPoint dataPoint = analyzeSingleSize(engines, size, runs);
+            printCrossoverRow(dataPoint, false);
+        }
+        
+        analyzeAndReportCrossovers(testSizes, runs);
+    }
+    
+    public static void runComprehensiveCrossoverAnalysis() {
+        System.out.println("\n🔬 COMPREHENSIVE CROSSOVER ANALYSIS");
+        System.out.println("=" + "=".repeat(70));
+        System.out.println("Detailed analysis with fine-grained input sizes...\n");
+        
+        // More comprehensive range with finer granularity
+        int[] testSizes = {
+            500, 1000, 2500, 5000, 7500, 10000, 15000, 20000, 25000, 
+            35000, 50000, 75000, 100000, 150000, 200000, 300000, 
+            500000, 750000, 1000000, 1500000, 2000000
+        };
+        int runs = 5; // More runs for statistical accuracy
+        List<SieveEngine> engines = enginesFor(testSizes[testSizes.length - 1]);
+        
+        verifyEngines(engines, testSizes[testSizes.length - 1]);
+        printCrossoverHeader(engines, true);
+        
+        CrossoverDataPoint[] dataPoints = new CrossoverDataPoint[testSizes.length];
+        
+        for (int i = 0; i < testSizes.length; i++) {
+            int size = testSizes[i];
+            CrossoverDataPoint dataPoint = analyzeSingleSize(engines, size, runs);
+            dataPoints[i] = dataPoint;
+            
+            printCrossoverRow(dataPoint, true);
+        }
+        
+        // Detailed crossover analysis
+        identifyDetailedCrossovers(dataPoints);
+        analyzeScalingBehavior(dataPoints);
+    }
+    
+    public static void runLargeScaleCrossoverAnalysis() {
+        System.out.println("\n🔭 LARGE-SCALE CROSSOVER ANALYSIS (PRIME COUNTING)");
+        System.out.println("=" + "=".repeat(70));
+        
+        // Count mode, so the sweep is not capped by the boolean[] tables: engines that count
+        // segment by segment run to 10B in O(sqrt(n)) memory, while table-based engines take
+        // part as long as n and their table fit (n/a in the row otherwise)
+        long[] testSizes = {10_000_000L, 25_000_000L, 50_000_000L, 100_000_000L, 250_000_000L, 
+            500_000_000L, 1_000_000_000L, 2_500_000_000L, 5_000_000_000L, 10_000_000_000L};
+        
+        // Half the heap, so the previous run's table can still be live when the next starts
+        long heapBudget = Runtime.getRuntime().maxMemory() / 2;
+        System.out.printf("Heap budget %.0f MB for table-based engines (raise -Xmx to keep them longer)%n%n", 
+            heapBudget / (1024.0 * 1024.0));
+        
+        List<SieveEngine> engines = registeredEngines();
+        verifyCounts(engines, 10_000_000, heapBudget);
+        printCrossoverHeader(engines, true);
+        
+        CrossoverDataPoint[] dataPoints = new CrossoverDataPoint[testSizes.length];
+        for (int i = 0; i < testSizes.length; i++) {
+            int runs = testSizes[i] >= 1_000_000_000L ? 1 : 3;
+            dataPoints[i] = analyzeCountSize(engines, testSizes[i], runs, heapBudget);
+            printCrossoverRow(dataPoints[i], true);
+        }
+        
+        identifyDetailedCrossovers(dataPoints);
+        analyzeScalingBehavior(dataPoints);
+    }
+    
+    // pi(10^k), to check the count-mode engines at the powers of ten in the sweep
+    private static final long[] PRIME_COUNTS_AT_POWERS_OF_TEN = {
+        0, 4, 25, 168, 1229, 9592, 78498, 664579, 5761455, 50847534, 455052511L, 4118054813L
+    };
+    
+    // Compares each engine's count with a scan of enhancedSieve; returns false on any mismatch
+    public static boolean verifyCounts(List<SieveEngine> engines, int n, long heapBudget) {
+        long reference = countPrimes(enhancedSieve(n));
+        long[] elapsed = new long[1];
+        boolean allMatch = true;
+        int verified = 0;
+        
+        for (SieveEngine engine : engines) {
+            if (!engine.capabilities().canCount(n, heapBudget)) continue;
+            long count = engine.timedCount(n, elapsed);
+            verified++;
+            if (count != reference) {
+                allMatch = false;
+                System.out.printf("⚠️  %s counts %d primes up to %d, Enhanced Sieve %d%n", 
+                    engine.name(), count, n, reference);
+            }
+        }
+        
+        if (allMatch) {
+            System.out.printf("✅ All %d counting engines verified against Enhanced Sieve (n = %d)%n", 
+                verified, n);
+        }
+        return allMatch;
+    }
+    
+    private static void printCrossoverHeader(List<SieveEngine> engines, boolean withSpeedup) {
+        System.out.printf("%-12s", "Input Size");
+        for (SieveEngine engine : engines) {
+            System.out.printf(" %-15s", engine.shortName() + " (ms)");
+        }
+        System.out.printf(" %-15s%s%n", "Winner", withSpeedup ? " Speedup" : "");
+        System.out.println("-".repeat(12 + 16 * (engines.size() + 1) + (withSpeedup ? 8 : 0)));
+    }
+    
+    private static void printCrossoverRow(CrossoverDataPoint dataPoint, boolean withSpeedup) {
+        System.out.printf("%-12d", dataPoint.inputSize);
+        for (double time : dataPoint.times) {
+            if (Double.isNaN(time)) {
+                System.out.printf(" %-15s", "n/a");     // engine cannot run at this size
+            } else {
+                System.out.printf(" %-15.3f", time);
+            }
+        }
+        System.out.printf(" %-15s", dataPoint.winner);
+        if (withSpeedup) {
+            System.out.printf(" %.2fx", dataPoint.speedup);
+        }
+        System.out.println();
+    }
+    
+    public static CrossoverDataPoint analyzeSingleSize(List<SieveEngine> engines, int size, int runs) {
+        // Quick benchmark with reduced output
+        String[] names = new String[engines.size()];
+        double[] times = new double[engines.size()];
+        int winnerIndex = 0;
+        
+        for (int i = 0; i < names.length; i++) {
+            SieveEngine engine = engines.get(i);
+            BenchmarkResult result = benchmarkMethodQuiet(engine.shortName(), engine, size, runs);
+            names[i] = engine.shortName();
+            times[i] = result.avgTime / 1_000_000.0;
+            if (times[i] < times[winnerIndex]) winnerIndex = i;
+        }
+        
+        // Speedup of the winner over the first (baseline) engine; when the baseline
+        // itself wins, how far ahead of the slowest engine it is
+        double speedup;
+        if (winnerIndex == 0) {
+            speedup = Arrays.stream(times).max().getAsDouble() / times[0];
+        } else {
+            speedup = times[0] / times[winnerIndex];
+        }
+        
+        return new CrossoverDataPoint(size, names, times, names[winnerIndex], speedup);
+    }
+    
+    // Count-mode counterpart of analyzeSingleSize; engines that cannot count to size in the
+    // heap budget get NaN and take no part in the winner or speedup
+    public static CrossoverDataPoint analyzeCountSize(List<SieveEngine> engines, long size, 
+            int runs, long heapBudget) {
+        String[] names = new String[engines.size()];
+        double[] times = new double[engines.size()];
+        int baselineIndex = -1;
+        int winnerIndex = -1;
+        long agreedCount = -1;
+        
+        for (int i = 0; i < names.length; i++) {
+            SieveEngine engine = engines.get(i);
+            names[i] = engine.shortName();
+            if (!engine.capabilities().canCount(size, heapBudget)) {
+                times[i] = Double.NaN;
+                continue;
+            }
+            
+            BenchmarkResult result = benchmarkCountQuiet(engine.shortName(), engine, size, runs);
+            times[i] = result.avgTime / 1_000_000.0;
+            if (baselineIndex < 0) baselineIndex = i;
+            if (winnerIndex < 0 || times[i] < times[winnerIndex]) winnerIndex = i;
+            
+            if (agreedCount < 0) {
+                agreedCount = result.primeCount;
+            } else if (result.primeCount != agreedCount) {
+                System.out.printf("⚠️  %s counts %d primes up to %d, %s counted %d%n", 
+                    engine.name(), result.primeCount, size, names[baselineIndex], agreedCount);
+            }
+        }
+        
+        // Known values at the powers of ten
+        long power = 1;
+        for (int k = 0; k < PRIME_COUNTS_AT_POWERS_OF_TEN.length; k++, power *= 10) {
+            if (size == power && agreedCount >= 0 && agreedCount != PRIME_COUNTS_AT_POWERS_OF_TEN[k]) {
+                System.out.printf("⚠️  pi(%d) is %d, engines counted %d%n", 
+                    size, PRIME_COUNTS_AT_POWERS_OF_TEN[k], agreedCount);
+            }
+        }
+        
+        if (winnerIndex < 0) {
+            return new CrossoverDataPoint(size, names, times, "none", Double.NaN);
+        }
+        
+        // As in analyzeSingleSize, against the first engine measured at this size
+        double slowest = 0;
+        for (double time : times) {
+            if (!Double.isNaN(time)) slowest = Math.max(slowest, time);
+        }
+        double speedup = winnerIndex == baselineIndex 
+            ? slowest / times[baselineIndex] : times[baselineIndex] / times[winnerIndex];
+        
+        return new CrossoverDataPoint(size, names, times, names[winnerIndex], speedup);
+    }
+    
+    // Count-mode benchmark (no console output); warms up at a smaller n so the
+    // multi-second sizes are not sieved more often than measured
+    public static BenchmarkResult benchmarkCountQuiet(String methodName, 
+            SieveEngine engine, long n, int runs) {
+        
+        long totalTime = 0;
+        long minTime = Long.MAX_VALUE;
+        long maxTime = Long.MIN_VALUE;
+        long primeCount = 0;
+        
+        // Warm up
+        long[] elapsed = new long[1];
+        for (int i = 0; i < 2; i++) {
+            engine.timedCount(Math.min(n, 10_000_000L), elapsed);
+        }
+        
+        // Run tests
+        for (int run = 0; run < runs; run++) {
+            System.gc();
+            
+            long count = engine.timedCount(n, elapsed);
+            
+            long executionTime = elapsed[0];
+            totalTime += executionTime;
+            minTime = Math.min(minTime, executionTime);
+            maxTime = Math.max(maxTime, executionTime);
+            
+            if (run == 0) {
+                primeCount = count;
+            }
+        }
+        
+        double avgTime = totalTime / (double) runs;
+        return new BenchmarkResult(methodName, engine, avgTime, minTime, maxTime, 
+                                 totalTime, primeCount, n);
+    }
+    
+    // Quiet benchmarking method (no console output)
+    public static BenchmarkResult benchmarkMethodQuiet(String methodName, 
+            SieveEngine engine, int n, int runs) {
+        
+        long totalTime = 0;
+        long minTime = Long.MAX_VALUE;
+        long maxTime = Long.MIN_VALUE;
+        int primeCount = 0;
+        
+        // Warm up
+        long[] elapsed = new long[1];
+        for (int i = 0; i < 2; i++) {
+            engine.timedSieve(n, elapsed);
+        }
+        
+        // Run tests
+        for (int run = 0; run < runs; run++) {
+            System.gc();
+            
+            boolean[] result = engine.timedSieve(n, elapsed);
+            
+            long executionTime = elapsed[0];
+            totalTime += executionTime;
+            minTime = Math.min(minTime, executionTime);
+            maxTime = Math.max(maxTime, executionTime);
+            
+            if (run == 0) {
+                primeCount = countPrimes(engine.shortName(), result);
+            }
+        }
+        
+        double avgTime = totalTime / (double) runs;
+        return new BenchmarkResult(methodName, engine, avgTime, minTime, maxTime, 
+                                 totalTime, primeCount, n);
+    }
+    
+    public static void analyzeAndReportCrossovers(int[] testSizes, int runs) {
+        System.out.println("\n📊 CROSSOVER ANALYSIS SUMMARY:");
+        System.out.println("=" + "=".repeat(50));
+        
+        System.out.println("🎯 PREDICTED CROSSOVER POINTS:");
+        System.out.println("• Basic → Enhanced: ~5,000 - 15,000");
+        System.out.println("• Enhanced → Segmented: ~100,000 - 500,000");
+        System.out.println("• Cache effects become significant: >250,000");
+        
+        System.out.println("\n💡 OPTIMIZATION INSIGHTS:");
+        System.out.println("• For applications with mixed input sizes, consider adaptive selection");
+        System.out.println("• Memory-constrained environments favor segmented approach earlier");
+        System.out.println("• JIT compilation may shift crossover points in long-running applications");
+    }
+    
+    public static void identifyDetailedCrossovers(CrossoverDataPoint[] dataPoints) {
+        System.out.println("\n🔍 DETAILED CROSSOVER IDENTIFICATION:");
+        System.out.println("-".repeat(60));
+        
+        String prevWinner = dataPoints[0].winner;
+        for (int i = 1; i < dataPoints.length; i++) {
+            if (!dataPoints[i].winner.equals(prevWinner)) {
+                System.out.printf("📈 Crossover detected: %s → %s at input size ~%d%n",
+                    prevWinner, dataPoints[i].winner, dataPoints[i].inputSize);
+                prevWinner = dataPoints[i].winner;
+            }
+        }
+    }
+    
+    public static void analyzeScalingBehavior(CrossoverDataPoint[] dataPoints) {
+        System.out.println("\n📈 SCALING BEHAVIOR ANALYSIS:");
+        System.out.println("-".repeat(50));
+        
+        // Analyze how algorithms scale with input size
+        System.out.println("Algorithm performance trends as input size increases:");
+        
+        // Calculate growth rates between first and last measurements
+        CrossoverDataPoint first = dataPoints[0];
+        for (int i = 0; i < first.engineNames.length; i++) {
+            // Engines that cannot run at every size are compared over the sizes they ran
+            CrossoverDataPoint from = null;
+            CrossoverDataPoint to = null;
+            for (CrossoverDataPoint point : dataPoints) {
+                if (Double.isNaN(point.times[i])) continue;
+                if (from == null) from = point;
+                to = point;
+            }
+            if (from == null || from == to) {
+                System.out.printf("• %s: measured at %s%n", first.engineNames[i], 
+                    from == null ? "no size" : "one size only");
+                continue;
+            }
+            System.out.printf("• %s: %.1fx slower (%d → %d)%n", first.engineNames[i], 
+                to.times[i] / from.times[i], from.inputSize, to.inputSize);
+        }
+    }
+    
+    // Helper class for crossover analysis
+    static class CrossoverDataPoint {
+        long inputSize;
+        String[] engineNames;
+        double[] times;     // average ms, one per engine in engineNames order (NaN: not run)
+        String winner;
+        double speedup;
+        
+        CrossoverDataPoint(long inputSize, String[] engineNames, double[] times, 
+                          String winner, double speedup) {
+            this.inputSize = inputSize;
+            this.engineNames = engineNames;
+            this.times = times;
+            this.winner = winner;
+            this.speedup = speedup;
+        }
+    }
+    
+    // Helper class to store benchmark results
+    static class BenchmarkResult {
+        String methodName;
+        SieveEngine engine;
+        double avgTime;
+        long minTime;
+        long maxTime;
+        long totalTime;
+        long primeCount;
+        long inputSize;
+        
+        BenchmarkResult(String methodName, SieveEngine engine, double avgTime, long minTime, 
+                       long maxTime, long totalTime, long primeCount, long inputSize) {
+            this.methodName = methodName;
+            this.engine = engine;
+            this.avgTime = avgTime;
+            this.minTime = minTime;
+            this.maxTime = maxTime;
+            this.totalTime = totalTime;
+            this.primeCount = primeCount;
+            this.inputSize = inputSize;
+        }
+    }
+    
+    // Hot-path instrumentation. Each phase emits a JFR event whenever a recording has it
+    // enabled (e.g. -XX:StartFlightRecording, no other flag needed) and also updates the
+    // per-engine LongAdder counters when -DfindPrimes.metrics=true. The begin methods
+    // return null when neither wants the phase, so the sieves pay one allocation the JIT
+    // can eliminate and a null check per phase. Marks are derived per prime from the
+    // loop bounds where possible, otherwise counted behind the same null check.
+    static final class SieveMetrics {
+        static final boolean ENABLED = Boolean.getBoolean("findPrimes.metrics");
+        
+        private static final Map<String, EngineCounters> COUNTERS = new ConcurrentHashMap<>();
+        
+        private SieveMetrics() {
+        }
+        
+        static final class EngineCounters {
+            final LongAdder marks = new LongAdder();
+            final LongAdder segments = new LongAdder();
+            final LongAdder bytesTouched = new LongAdder();
+            final LongAdder basePrimeNanos = new LongAdder();
+            final LongAdder segmentNanos = new LongAdder();
+            final LongAdder countNanos = new LongAdder();
+        }
+        
+        // Point-in-time copy of one engine's counters
+        static final class MetricsSnapshot {
+            final String engine;
+            final long marks;
+            final long segments;
+            final long bytesTouched;
+            final long basePrimeNanos;
+            final long segmentNanos;
+            final long countNanos;
+            
+            MetricsSnapshot(String engine, EngineCounters counters) {
+                this.engine = engine;
+                this.marks = counters.marks.sum();
+                this.segments = counters.segments.sum();
+                this.bytesTouched = counters.bytesTouched.sum();
+                this.basePrimeNanos = counters.basePrimeNanos.sum();
+                this.segmentNanos = counters.segmentNanos.sum();
+                this.countNanos = counters.countNanos.sum();
+            }
+        }
+        
+        private static EngineCounters counters(String engine) {
+            return COUNTERS.computeIfAbsent(engine, e -> new EngineCounters());
+        }
+        
+        static BasePrimesEvent beginBasePrimes() {
+            BasePrimesEvent event = new BasePrimesEvent();
+            if (!ENABLED && !event.isEnabled()) return null;
+            event.startNanos = System.nanoTime();
+            event.begin();
+            return event;
+        }
+        
+        static void endBasePrimes(BasePrimesEvent event, String engine, long limit, 
+                int basePrimes, long marks, long bytesTouched) {
+            event.end();
+            if (ENABLED) {
+                EngineCounters c = counters(engine);
+                c.basePrimeNanos.add(System.nanoTime() - event.startNanos);
+                c.marks.add(marks);
+                c.bytesTouched.add(bytesTouched);
+            }
+            
+            if (event.shouldCommit()) {
+                event.engine = engine;
+                event.limit = limit;
+                event.basePrimes = basePrimes;
+                event.marks = marks;
+                event.commit();
+            }
+        }
+        
+        static SegmentEvent beginSegment() {
+            SegmentEvent event = new SegmentEvent();
+            if (!ENABLED && !event.isEnabled()) return null;
+            event.startNanos = System.nanoTime();
+            event.begin();
+            return event;
+        }
+        
+        static void endSegment(SegmentEvent event, String engine, long low, long high, 
+                long marks, long bytesTouched) {
+            event.end();
+            if (ENABLED) {
+                EngineCounters c = counters(engine);
+                c.segmentNanos.add(System.nanoTime() - event.startNanos);
+                c.segments.increment();
+                c.marks.add(marks);
+                c.bytesTouched.add(bytesTouched);
+            }
+            
+            if (event.shouldCommit()) {
+                event.engine = engine;
+                event.low = low;
+                event.high = high;
+                event.marks = marks;
+                event.bytesTouched = bytesTouched;
+                event.commit();
+            }
+        }
+        
+        static CountEvent beginCount() {
+            CountEvent event = new CountEvent();
+            if (!ENABLED && !event.isEnabled()) return null;
+            event.startNanos = System.nanoTime();
+            event.begin();
+            return event;
+        }
+        
+        static void endCount(CountEvent event, String engine, long length, int primes) {
+            event.end();
+            if (ENABLED) {
+                EngineCounters c = counters(engine);
+                c.countNanos.add(System.nanoTime() - event.startNanos);
+                c.bytesTouched.add(length);
+            }
+            
+            if (event.shouldCommit()) {
+                event.engine = engine;
+                event.length = length;
+                event.primes = primes;
+                event.commit();
+            }
+        }
+        
+        // Counters for every engine seen so far, sorted by engine name
+        static List<MetricsSnapshot> snapshot() {
+            List<MetricsSnapshot> snapshots = new ArrayList<>();
+            for (Map.Entry<String, EngineCounters> entry : new TreeMap<>(COUNTERS).entrySet()) {
+                snapshots.add(new MetricsSnapshot(entry.getKey(), entry.getValue()));
+            }
+            return snapshots;
+        }
+        
+        static void reset() {
+            COUNTERS.clear();
+        }
+        
+        // Prometheus text exposition format, ready to serve or print
+        static String export() {
+            StringBuilder out = new StringBuilder();
+            List<MetricsSnapshot> snapshots = snapshot();
+            appendMetric(out, snapshots, "findprimes_marks_total", "counter", 
+                "Composite marks performed", s -> s.marks);
+            appendMetric(out, snapshots, "findprimes_segments_total", "counter", 
+                "Segments sieved", s -> s.segments);
+            appendMetric(out, snapshots, "findprimes_bytes_touched_total", "counter", 
+                "Table bytes initialised, marked or scanned", s -> s.bytesTouched);
+            appendMetric(out, snapshots, "findprimes_base_primes_nanos_total", "counter", 
+                "Time generating base primes", s -> s.basePrimeNanos);
+            appendMetric(out, snapshots, "findprimes_segment_nanos_total", "counter", 
+                "Time sieving segments", s -> s.segmentNanos);
+            appendMetric(out, snapshots, "findprimes_count_nanos_total", "counter", 
+                "Time in the count/scan phase", s -> s.countNanos);
+            return out.toString();
+        }
+        
+        private static void appendMetric(StringBuilder out, List<MetricsSnapshot> snapshots, 
+                String name, String type, String help, ToLongFunction<MetricsSnapshot> value) {
+            out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+            out.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+            for (MetricsSnapshot s : snapshots) {
+                // Skip phases this engine never ran (e.g. base primes for Basic)
+                long v = value.applyAsLong(s);
+                if (v == 0) continue;
+                out.append(name).append("{engine=\"").append(s.engine).append("\"} ")
+                   .append(v).append('\n');
+            }
+        }
+    }
+    
+    @Name("findPrimes.BasePrimes")
+    @Label("Base Prime Generation")
+    @Category({"findPrimes", "Sieve"})
+    static final class BasePrimesEvent extends Event {
+        @Label("Engine")
+        String engine;
+        
+        @Label("Limit")
+        long limit;
+        
+        @Label("Base Primes")
+        int basePrimes;
+        
+        @Label("Marks")
+        long marks;
+        
+        transient long startNanos;
+    }
+    
+    @Name("findPrimes.Segment")
+    @Label("Segment Sieved")
+    @Category({"findPrimes", "Sieve"})
+    static final class SegmentEvent extends Event {
+        @Label("Engine")
+        String engine;
+        
+        @Label("Low")
+        long low;
+        
+        @Label("High")
+        long high;
+        
+        @Label("Marks")
+        long marks;
+        
+        @Label("Bytes Touched")
+        @DataAmount
+        long bytesTouched;
+        
+        transient long startNanos;
+    }
+    
+    @Name("findPrimes.Count")
+    @Label("Count Phase")
+    @Category({"findPrimes", "Sieve"})
+    static final class CountEvent extends Event {
+        @Label("Engine")
+        String engine;
+        
+        @Label("Table Length")
+        long length;
+        
+        @Label("Primes")
+        int primes;
+        
+        transient long startNanos;
+    }
+    
+    // Pluggable sieve implementation. Every registered engine is picked up by the
+    // benchmark, crossover and throughput reports; extra engines are registered by
+    // listing their class names in META-INF/services/findPrimes$SieveEngine.
+    public interface SieveEngine {
+        String name();                          // display name, e.g. "Enhanced Sieve"
+        String shortName();                     // column label in crossover tables
+        EngineCapabilities capabilities();
+        boolean[] sieve(int n);                 // isComposite table for [0, n]
+        
+        // sieve(n) with its duration in elapsed[0]. The benchmarks time through this, so
+        // each engine should read the clock around a direct call to its own sieve; this
+        // default leaves the interface dispatch inside the timed region.
+        default boolean[] timedSieve(int n, long[] elapsed) {
+            long start = System.nanoTime();
+            boolean[] result = sieve(n);
+            elapsed[0] = System.nanoTime() - start;
+            return result;
+        }
+        
+        // Count mode: the number of primes <= n (n up to capabilities().maxCountRange),
+        // timed the same way. This default sieves and scans a table, so n <= maxRange.
+        default long timedCount(long n, long[] elapsed) {
+            long start = System.nanoTime();
+            long count = countPrimes(shortName(), sieve((int) n));
+            elapsed[0] = System.nanoTime() - start;
+            return count;
+        }
+    }
+    
+    public enum OutputType {
+        COMPOSITE_TABLE("marks the full O(n) table in place"),
+        SEGMENTED_TABLE("marks O(√n)-sized segments, then copies them into the O(n) table"),
+        BLOCKED_TABLE("fills the O(n) table one cache-sized block at a time"),
+        LINKED_WHEEL("keeps the O(n) table plus O(n) links between the wheel's members");
+        
+        final String description;
+        
+        OutputType(String description) {
+            this.description = description;
+        }
+    }
+    
+    public static final class EngineCapabilities {
+        // Largest n the int index arithmetic in the table-based sieves handles safely
+        public static final long TABLE_MAX_RANGE = Integer.MAX_VALUE - (1 << 20);
+        
+        // Largest n for the segment-at-a-time counts: base primes stay well inside an int
+        // table and p*p, block offsets and counts inside a long
+        public static final long COUNT_MAX_RANGE = 1L << 40;
+        
+        final long maxRange;            // largest n for sieve(n)
+        final long maxCountRange;       // largest n for timedCount(n)
+        final int tableBytesPerValue;   // heap per unit of n while sieve(n) runs
+        final boolean parallel;
+        final OutputType outputType;
+        
+        public EngineCapabilities(long maxRange, boolean parallel, OutputType outputType) {
+            this(maxRange, maxRange, 1, parallel, outputType);
+        }
+        
+        public EngineCapabilities(long maxRange, long maxCountRange, int tableBytesPerValue, 
+                boolean parallel, OutputType outputType) {
+            this.maxRange = maxRange;
+            this.maxCountRange = maxCountRange;
+            this.tableBytesPerValue = tableBytesPerValue;
+            this.parallel = parallel;
+            this.outputType = outputType;
+        }
+        
+        // Whether timedCount(n) can run in the given heap. Engines that count beyond their
+        // table range count segment by segment in O(sqrt(n)) memory; the rest need a table
+        public boolean canCount(long n, long heapBytes) {
+            if (n > maxCountRange) return false;
+            return maxCountRange > maxRange || (long) tableBytesPerValue * (n + 1) < heapBytes;
+        }
+    }
+    
+    public static final class BasicSieveEngine implements SieveEngine {
+        // i * 2 overflows once i passes Integer.MAX_VALUE / 2
+        private static final EngineCapabilities CAPABILITIES = 
+            new EngineCapabilities(Integer.MAX_VALUE / 2, false, OutputType.COMPOSITE_TABLE);
+        
+        public String name() { return "Basic Sieve"; }
+        public String shortName() { return "Basic"; }
+        public EngineCapabilities capabilities() { return CAPABILITIES; }
+        public boolean[] sieve(int n) { return basicSieve(n); }
+        
+        public boolean[] timedSieve(int n, long[] elapsed) {
+            long start = System.nanoTime();
+            boolean[] result = basicSieve(n);
+            elapsed[0] = System.nanoTime() - start;
+            return result;
+        }
+        
+        public long timedCount(long n, long[] elapsed) {
+            long start = System.nanoTime();
+            long count = countPrimes("Basic", basicSieve((int) n));
+            elapsed[0] = System.nanoTime() - start;
+            return count;
+        }
+    }
+    
+    public static final class EnhancedSieveEngine implements SieveEngine {
+        private static final EngineCapabilities CAPABILITIES = new EngineCapabilities(
+            EngineCapabilities.TABLE_MAX_RANGE, false, OutputType.COMPOSITE_TABLE);
+        
+        public String name() { return "Enhanced Sieve"; }
+        public String shortName() { return "Enhanced"; }
+        public EngineCapabilities capabilities() { return CAPABILITIES; }
+        public boolean[] sieve(int n) { return enhancedSieve(n); }
+        
+        public boolean[] timedSieve(int n, long[] elapsed) {
+            long start = System.nanoTime();
+            boolean[] result = enhancedSieve(n);
+            elapsed[0] = System.nanoTime() - start;
+            return result;
+        }
+        
+        public long timedCount(long n, long[] elapsed) {
+            long start = System.nanoTime();
+            long count = countPrimes("Enhanced", enhancedSieve((int) n));
+            elapsed[0] = System.nanoTime() - start;
+            return count;
+        }
+    }
+    
+    public static final class UltraEnhancedSieveEngine implements SieveEngine {
+        private static final EngineCapabilities CAPABILITIES = new EngineCapabilities(
+            EngineCapabilities.TABLE_MAX_RANGE, false, OutputType.COMPOSITE_TABLE);
+        
+        public String name() { return "Ultra-Enhanced Sieve"; }
+        public String shortName() { return "Ultra"; }
+        public EngineCapabilities capabilities() { return CAPABILITIES; }
+        public boolean[] sieve(int n) { return ultraEnhancedSieve(n); }
+        
+        public boolean[] timedSieve(int n, long[] elapsed) {
+            long start = System.nanoTime();
+            boolean[] result = ultraEnhancedSieve(n);
+            elapsed[0] = System.nanoTime() - start;
+            return result;
+        }
+        
+        public long timedCount(long n, long[] elapsed) {
+            long start = System.nanoTime();
+            long count = countPrimes("Ultra", ultraEnhancedSieve((int) n));
+            elapsed[0] = System.nanoTime() - start;
+            return count;
+        }
+    }
+    
+    public static final class SegmentedSieveEngine implements SieveEngine {
+        private static final EngineCapabilities CAPABILITIES = new EngineCapabilities(
+            EngineCapabilities.TABLE_MAX_RANGE, EngineCapabilities.COUNT_MAX_RANGE, 1, 
+            false, OutputType.SEGMENTED_TABLE);
+        
+        public String name() { return "Segmented Sieve"; }
+        public String shortName() { return "Segmented"; }
+        public EngineCapabilities capabilities() { return CAPABILITIES; }
+        public boolean[] sieve(int n) { return segmentedSieve(n); }
+        
+        public boolean[] timedSieve(int n, long[] elapsed) {
+            long start = System.nanoTime();
+            boolean[] result = segmentedSieve(n);
+            elapsed[0] = System.nanoTime() - start;
+            return result;
+        }
+        
+        public long timedCount(long n, long[] elapsed) {
+            long start = System.nanoTime();
+            long count = segmentedCount(n);
+            elapsed[0] = System.nanoTime() - start;
+            return count;
+        }
+    }
+    
+    public static final class AtkinSieveEngine implements SieveEngine {
+        private static final EngineCapabilities CAPABILITIES = new EngineCapabilities(
+            EngineCapabilities.TABLE_MAX_RANGE, EngineCapabilities.COUNT_MAX_RANGE, 1, 
+            false, OutputType.BLOCKED_TABLE);
+        
+        public String name() { return "Sieve of Atkin"; }
+        public String shortName() { return "Atkin"; }
+        public EngineCapabilities capabilities() { return CAPABILITIES; }
+        public boolean[] sieve(int n) { return atkinSieve(n); }
+        
+        public boolean[] timedSieve(int n, long[] elapsed) {
+            long start = System.nanoTime();
+            boolean[] result = atkinSieve(n);
+            elapsed[0] = System.nanoTime() - start;
+            return result;
+        }
+        
+        public long timedCount(long n, long[] elapsed) {
+            long start = System.nanoTime();
+            long count = atkinCount(n);
+            elapsed[0] = System.nanoTime() - start;
+            return count;
+        }
+    }
+    
+    public static final class WheelSieveEngine implements SieveEngine {
+        private static final EngineCapabilities CAPABILITIES = new EngineCapabilities(
+            EngineCapabilities.TABLE_MAX_RANGE, EngineCapabilities.COUNT_MAX_RANGE, 1, 
+            false, OutputType.BLOCKED_TABLE);
+        
+        public String name() { return "Wheel-30030 Eratosthenes"; }
+        public String shortName() { return "Wheel"; }
+        public EngineCapabilities capabilities() { return CAPABILITIES; }
+        public boolean[] sieve(int n) { return wheelSieve(n); }
+        
+        public boolean[] timedSieve(int n, long[] elapsed) {
+            long start = System.nanoTime();
+            boolean[] result = wheelSieve(n);
+            elapsed[0] = System.nanoTime() - start;
+            return result;
+        }
+        
+        public long timedCount(long n, long[] elapsed) {
+            long start = System.nanoTime();
+            long count = wheelCount(n);
+            elapsed[0] = System.nanoTime() - start;
+            return count;
+        }
+    }
+    
+    public static final class PritchardSieveEngine implements SieveEngine {
+        // The table plus two int links for every odd number
+        private static final EngineCapabilities CAPABILITIES = new EngineCapabilities(
+            EngineCapabilities.TABLE_MAX_RANGE, EngineCapabilities.TABLE_MAX_RANGE, 5, 
+            false, OutputType.LINKED_WHEEL);
+        
+        public String name() { return "Pritchard Dynamic Wheel"; }
+        public String shortName() { return "Pritchard"; }
+        public EngineCapabilities capabilities() { return CAPABILITIES; }
+        public boolean[] sieve(int n) { return pritchardSieve(n); }
+        
+        public boolean[] timedSieve(int n, long[] elapsed) {
+            long start = System.nanoTime();
+            boolean[] result = pritchardSieve(n);
+            elapsed[0] = System.nanoTime() - start;
+            return result;
+        }
+        
+        public long timedCount(long n, long[] elapsed) {
+            long start = System.nanoTime();
+            long count = countPrimes("Pritchard", pritchardSieve((int) n));
+            elapsed[0] = System.nanoTime() - start;
+            return count;
+        }
+    }
+    
+    // Result of one concurrent throughput run; workers merge into it when they finish
+    static class ThroughputResult {
+        String methodName;
+        LatencyHistogram latencies = new LatencyHistogram();
+        LatencyHistogram gcPauses = new LatencyHistogram();
+        long allocatedBytes;        // -1 when the JVM can't attribute allocations to threads
+        long elapsedNanos;
+        
+        ThroughputResult(String methodName) {
+            this.methodName = methodName;
+        }
+        
+        synchronized void merge(LatencyHistogram workerLatencies, long workerAllocatedBytes) {
+            latencies.add(workerLatencies);
+            if (workerAllocatedBytes < 0 || allocatedBytes < 0) {
+                allocatedBytes = -1;
+            } else {
+                allocatedBytes += workerAllocatedBytes;
+            }
+        }
+        
+        double opsPerSecond() {
+            return elapsedNanos == 0 ? 0 : latencies.totalCount() / (elapsedNanos / 1e9);
+        }
+    }
+    
+    // HdrHistogram-style log-linear histogram: values below 128 are exact, larger
+    // values land in power-of-two buckets split into 64 linear sub-buckets (<1.6% error)
+    static final class LatencyHistogram {
+        static final int SUB_BUCKET_BITS = 7;
+        static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+        static final int SUB_BUCKET_HALF = SUB_BUCKET_COUNT / 2;
+        
+        private final long[] counts = new long[(64 - SUB_BUCKET_BITS + 1) * SUB_BUCKET_HALF + SUB_BUCKET_HALF];
+        private long totalCount;
+        private long totalValue;
+        private long max;
+        
+        void record(long value) {
+            if (value < 0) value = 0;
+            counts[indexFor(value)]++;
+            totalCount++;
+            totalValue += value;
+            max = Math.max(max, value);
+        }
+        
+        void add(LatencyHistogram other) {
+            for (int i = 0; i < counts.length; i++) {
+                counts[i] += other.counts[i];
+            }
+            totalCount += other.totalCount;
+            totalValue += other.totalValue;
+            max = Math.max(max, other.max);
+        }
+        
+        private static int indexFor(long value) {
+            if (value < SUB_BUCKET_COUNT) return (int) value;
+            int bucket = 63 - Long.numberOfLeadingZeros(value) - (SUB_BUCKET_BITS - 1);
+            return bucket * SUB_BUCKET_HALF + (int) (value >>> bucket);
+        }
+        
+        // Highest value that maps to the same slot as index
+        private static long valueFor(int index) {
+            if (index < SUB_BUCKET_COUNT) return index;
+            int bucket = index / SUB_BUCKET_HALF - 1;
+            long subBucket = index - (long) bucket * SUB_BUCKET_HALF;
+            return ((subBucket + 1) << bucket) - 1;
+        }
+        
+        long percentile(double percentile) {
+            if (totalCount == 0) return 0;
+            long target = Math.max(1, (long) Math.ceil(totalCount * percentile / 100.0));
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= target) return Math.min(valueFor(i), max);
+            }
+            return max;
+        }
+        
+        long totalCount() {
+            return totalCount;
+        }
+        
+        long totalValue() {
+            return totalValue;
+        }
+        
+        long max() {
+            return max;
+        }
+    }
+    
+    // Succinct-style rank index over an isComposite table: cumulative prime counts
+    // per 4096-entry block (int) plus block-relative counts per 512-entry sub-block
+    // (short), about 0.5% of the table. Counting scans at most one sub-block; selecting
+    // the n-th prime binary-searches the blocks first.
+    static final class PrimeRankIndex {
+        static final int BLOCK_SHIFT = 12;
+        static final int SUB_BLOCK_SHIFT = 9;
+        static final int SUB_BLOCK_SIZE = 1 << SUB_BLOCK_SHIFT;
+        static final int SUBS_PER_BLOCK = 1 << (BLOCK_SHIFT - SUB_BLOCK_SHIFT);
+        
+        private final boolean[] isComposite;
+        private final int[] blockRanks;     // primes before each block
+        private final short[] subRanks;     // primes before each sub-block, within its block
+        private final int total;
+        
+        private PrimeRankIndex(boolean[] isComposite, int[] blockRanks, short[] subRanks, int total) {
+            this.isComposite = isComposite;
+            this.blockRanks = blockRanks;
+            this.subRanks = subRanks;
+            this.total = total;
+        }
+        
+        public static PrimeRankIndex build(boolean[] isComposite) {
+            int length = isComposite.length;
+            int[] blockRanks = new int[(length >> BLOCK_SHIFT) + 1];
+            short[] subRanks = new short[(length >> SUB_BLOCK_SHIFT) + 1];
+            
+            int count = 0;
+            int blockStartCount = 0;
+            for (int sub = 0; sub < subRanks.length; sub++) {
+                if ((sub & (SUBS_PER_BLOCK - 1)) == 0) {
+                    blockStartCount = count;
+                    blockRanks[sub >> (BLOCK_SHIFT - SUB_BLOCK_SHIFT)] = count;
+                }
+                subRanks[sub] = (short) (count - blockStartCount);
+                
+                int start = sub << SUB_BLOCK_SHIFT;
+                int end = Math.min(start + SUB_BLOCK_SIZE, length);
+                for (int i = Math.max(start, 2); i < end; i++) {
+                    if (!isComposite[i]) count++;
+                }
+            }
+            return new PrimeRankIndex(isComposite, blockRanks, subRanks, count);
+        }
+        
+        public long overheadBytes() {
+            return 4L * blockRanks.length + 2L * subRanks.length;
+        }
+        
+        public int totalPrimes() {
+            return total;
+        }
+        
+        // Primes in [0, end)
+        private int rank(int end) {
+            int sub = end >> SUB_BLOCK_SHIFT;
+            int count = blockRanks[end >> BLOCK_SHIFT] + subRanks[sub];
+            for (int i = Math.max(sub << SUB_BLOCK_SHIFT, 2); i < end; i++) {
+                if (!isComposite[i]) count++;
+            }
+            return count;
+        }
+        
+        // pi(x): number of primes <= x
+        public int countUpTo(int x) {
+            if (x < 0 || x >= isComposite.length) {
+                throw new IllegalArgumentException("x must be in [0, " + (isComposite.length - 1) + "]: " + x);
+            }
+            return rank(x + 1);
+        }
+        
+        // Number of primes in [a, b]
+        public int countInRange(int a, int b) {
+            if (a > b) return 0;
+            return countUpTo(b) - (a == 0 ? 0 : countUpTo(a - 1));
+        }
+        
+        // n-th prime, 1-based (nthPrime(1) == 2)
+        public int nthPrime(int n) {
+            if (n < 1 || n > total) {
+                throw new IllegalArgumentException("n must be in [1, " + total + "]: " + n);
+            }
+            
+            // Last block with fewer than n primes before it
+            int lo = 0;
+            int hi = blockRanks.length - 1;
+            while (lo < hi) {
+                int mid = (lo + hi + 1) >>> 1;
+                if (blockRanks[mid] < n) lo = mid;
+                else hi = mid - 1;
+            }
+            
+            // Then the last sub-block inside it, then scan
+            int remaining = n - blockRanks[lo];
+            int sub = lo * SUBS_PER_BLOCK;
+            int lastSub = Math.min(sub + SUBS_PER_BLOCK, subRanks.length) - 1;
+            while (sub < lastSub && subRanks[sub + 1] < remaining) sub++;
+            remaining -= subRanks[sub];
+            
+            for (int i = Math.max(sub << SUB_BLOCK_SHIFT, 2); ; i++) {
+                if (!isComposite[i] && --remaining == 0) return i;
+            }
+        }
+    }
+    
+    // Binary prime archive: primes stored as byte-sized half-gaps plus a sparse
+    // checkpoint index every `interval` primes for random access. Seeking by value goes
+    // through a power-of-two value directory built from the checkpoints when opened.
+    //
+    // Layout (big-endian):
+    //   header   int MAGIC, int VERSION, int interval, int reserved, long limit
+    //   data     one code per odd prime, as half the gap from the previous odd prime
+    //            (starting from 1): byte 1-255, or 0 followed by an int for larger
+    //            gaps; an escaped 0 terminates the data. 2 is implicit when limit >= 2.
+    //   index    long checkpoints, then (long value, long offset) per checkpoint, where
+    //            checkpoint j is prime #(j*interval + 1) and offset points at the code
+    //            of the prime after it
+    //   trailer  long indexOffset, long primeCount, long limit, int interval, int MAGIC
+    static final class PrimeArchive implements Closeable {
+        static final int MAGIC = 0x50474150;    // "PGAP"
+        static final int VERSION = 1;
+        static final int HEADER_BYTES = 24;
+        static final int TRAILER_BYTES = 32;
+        static final int DEFAULT_CHECKPOINT_INTERVAL = 1024;
+        static final int SEGMENT_SIZE = 262144;
+        static final int BUFFER_SIZE = 65536;
+        
+        private final FileChannel channel;
+        private final long limit;
+        private final long count;
+        private final int interval;
+        private final long indexOffset;
+        private final long[] checkpointValues;
+        private final long[] checkpointOffsets;
+        
+        // Value directory, built on open: bucketCheckpoint[b] is the last checkpoint whose
+        // value is <= b << bucketShift. Checkpoints are `interval` odd primes apart, so at
+        // least 2*interval - 1 apart in value, and a bucket of at most 16*interval values
+        // holds no more than ~9 of them however large the archive is.
+        private final int bucketShift;
+        private final int[] bucketCheckpoint;
+        
+        private PrimeArchive(FileChannel channel, long limit, long count, int interval, 
+                long indexOffset, long[] checkpointValues, long[] checkpointOffsets) {
+            this.channel = channel;
+            this.limit = limit;
+            this.count = count;
+            this.interval = interval;
+            this.indexOffset = indexOffset;
+            this.checkpointValues = checkpointValues;
+            this.checkpointOffsets = checkpointOffsets;
+            
+            // Widen the buckets only if the directory would outgrow the checkpoint index
+            int shift = 31 - Integer.numberOfLeadingZeros(16 * interval);
+            long maxValue = Math.max(limit, 0);
+            while ((maxValue >>> shift) >= 2L * checkpointValues.length + 16 
+                    || (maxValue >>> shift) >= Integer.MAX_VALUE - 1) {
+                shift++;
+            }
+            this.bucketShift = shift;
+            this.bucketCheckpoint = new int[(int) (maxValue >>> shift) + 1];
+            
+            int checkpoint = 0;
+            for (int b = 0; b < bucketCheckpoint.length; b++) {
+                long bucketLow = (long) b << shift;
+                while (checkpoint + 1 < checkpointValues.length 
+                        && checkpointValues[checkpoint + 1] <= bucketLow) {
+                    checkpoint++;
+                }
+                bucketCheckpoint[b] = checkpoint;
+            }
+        }
+        
+        // Streams every prime <= limit into the channel; returns the number of primes
+        public static long write(WritableByteChannel out, long limit, int interval) throws IOException {
+            if (interval < 1) throw new IllegalArgumentException("interval must be >= 1");
+            
+            ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+            buffer.putInt(MAGIC).putInt(VERSION).putInt(interval).putInt(0).putLong(limit);
+            long flushed = 0;
+            
+            long[] values = new long[64];
+            long[] offsets = new long[64];
+            int checkpoints = 0;
+            long primeCount = 0;
+            long previousOdd = 1;
+            
+            if (limit >= 2) {
+                int[] basePrimes = collectBasePrimes(limit);
+                boolean[] segment = new boolean[SEGMENT_SIZE];
+                
+                for (long low = 0; low <= limit; low += SEGMENT_SIZE) {
+                    long high = Math.min(low + SEGMENT_SIZE - 1, limit);
+                    
+                    for (long prime : primesInRange(low, high, basePrimes, segment)) {
+                        if (buffer.remaining() < 5) {
+                            flushed += flush(buffer, out);
+                        }
+                        if (prime != 2) {
+                            long halfGap = (prime - previousOdd) >>> 1;
+                            if (halfGap <= 255) {
+                                buffer.put((byte) halfGap);
+                            } else {
+                                buffer.put((byte) 0).putInt((int) halfGap);
+                            }
+                            previousOdd = prime;
+                        }
+                        
+                        if (primeCount % interval == 0) {
+                            if (checkpoints == values.length) {
+                                values = Arrays.copyOf(values, checkpoints * 2);
+                                offsets = Arrays.copyOf(offsets, checkpoints * 2);
+                            }
+                            values[checkpoints] = prime;
+                            offsets[checkpoints] = flushed + buffer.position();
+                            checkpoints++;
+                        }
+                        primeCount++;
+                    }
+                }
+            }
+            
+            // Terminator, then the index and trailer
+            if (buffer.remaining() < 5) flushed += flush(buffer, out);
+            buffer.put((byte) 0).putInt(0);
+            long indexStart = flushed + buffer.position();
+            
+            if (buffer.remaining() < 8) flushed += flush(buffer, out);
+            buffer.putLong(checkpoints);
+            for (int i = 0; i < checkpoints; i++) {
+                if (buffer.remaining() < 16) flushed += flush(buffer, out);
+                buffer.putLong(values[i]).putLong(offsets[i]);
+            }
+            
+            if (buffer.remaining() < TRAILER_BYTES) flushed += flush(buffer, out);
+            buffer.putLong(indexStart).putLong(primeCount).putLong(limit)
+                  .putInt(interval).putInt(MAGIC);
+            flush(buffer, out);
+            
+            return primeCount;
+        }
+        
+        private static int flush(ByteBuffer buffer, WritableByteChannel out) throws IOException {
+            buffer.flip();
+            int bytes = buffer.remaining();
+            while (buffer.hasRemaining()) {
+                out.write(buffer);
+            }
+            buffer.clear();
+            return bytes;
+        }
+        
+        // Sequential decode straight from a channel - no index needed; returns the prime count
+        public static long decode(ReadableByteChannel in, LongConsumer sink) throws IOException {
+            ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+            buffer.limit(0);
+            if (!fill(buffer, in, HEADER_BYTES)) throw new IOException("Truncated archive header");
+            if (buffer.getInt() != MAGIC) throw new IOException("Not a prime archive");
+            if (buffer.getInt() != VERSION) throw new IOException("Unsupported archive version");
+            buffer.getInt();
+            buffer.getInt();
+            long archiveLimit = buffer.getLong();
+            
+            long primeCount = 0;
+            if (archiveLimit >= 2) {
+                sink.accept(2);
+                primeCount++;
+            }
+            
+            long prime = 1;
+            while (true) {
+                if (!buffer.hasRemaining() && !fill(buffer, in, 1)) {
+                    throw new IOException("Truncated archive data");
+                }
+                int code = buffer.get() & 0xFF;
+                if (code == 0) {
+                    if (!fill(buffer, in, 4)) throw new IOException("Truncated archive data");
+                    code = buffer.getInt();
+                    if (code == 0) break;
+                }
+                prime += 2L * code;
+                sink.accept(prime);
+                primeCount++;
+            }
+            return primeCount;
+        }
+        
+        // Tops the buffer up so at least `needed` bytes are readable (false on early EOF)
+        private static boolean fill(ByteBuffer buffer, ReadableByteChannel in, int needed) 
+                throws IOException {
+            if (buffer.remaining() >= needed) return true;
+            
+            buffer.compact();
+            while (buffer.position() < needed) {
+                if (in.read(buffer) < 0) {
+                    buffer.flip();
+                    return buffer.remaining() >= needed;
+                }
+            }
+            buffer.flip();
+            return true;
+        }
+        
+        public static PrimeArchive open(Path path) throws IOException {
+            FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+            try {
+                long size = channel.size();
+                if (size < HEADER_BYTES + TRAILER_BYTES) throw new IOException("Not a prime archive");
+                
+                ByteBuffer trailer = readFully(channel, size - TRAILER_BYTES, TRAILER_BYTES);
+                long indexOffset = trailer.getLong();
+                long primeCount = trailer.getLong();
+                long archiveLimit = trailer.getLong();
+                int interval = trailer.getInt();
+                if (trailer.getInt() != MAGIC) throw new IOException("Not a prime archive");
+                
+                long checkpoints = readFully(channel, indexOffset, 8).getLong();
+                if (checkpoints > Integer.MAX_VALUE 
+                        || indexOffset + 8 + checkpoints * 16 != size - TRAILER_BYTES) {
+                    throw new IOException("Corrupt archive index");
+                }
+                
+                long[] values = new long[(int) checkpoints];
+                long[] offsets = new long[(int) checkpoints];
+                ByteBuffer index = readFully(channel, indexOffset + 8, (int) checkpoints * 16);
+                for (int i = 0; i < values.length; i++) {
+                    values[i] = index.getLong();
+                    offsets[i] = index.getLong();
+                }
+                
+                return new PrimeArchive(channel, archiveLimit, primeCount, interval, 
+                    indexOffset, values, offsets);
+            } catch (IOException | RuntimeException e) {
+                channel.close();
+                throw e;
+            }
+        }
+        
+        private static ByteBuffer readFully(FileChannel channel, long position, int bytes) 
+                throws IOException {
+            ByteBuffer buffer = ByteBuffer.allocate(bytes);
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, position + buffer.position()) < 0) {
+                    throw new IOException("Truncated archive");
+                }
+            }
+            buffer.flip();
+            return buffer;
+        }
+        
+        public long limit() {
+            return limit;
+        }
+        
+        public long count() {
+            return count;
+        }
+        
+        // n-th prime, 1-based (nthPrime(1) == 2): one checkpoint lookup plus < interval gaps
+        public long nthPrime(long n) throws IOException {
+            if (n < 1 || n > count) {
+                throw new IllegalArgumentException("n must be in [1, " + count + "]: " + n);
+            }
+            
+            long ordinal = n - 1;
+            int checkpoint = (int) (ordinal / interval);
+            int steps = (int) (ordinal - (long) checkpoint * interval);
+            long prime = checkpointValues[checkpoint];
+            if (steps == 0) return prime;
+            
+            ByteBuffer codes = readCodes(checkpoint);
+            for (int i = 0; i < steps; i++) {
+                prime = nextPrime(codes, prime);
+            }
+            return prime;
+        }
+        
+        // Smallest archived prime >= x, or -1 when x is beyond the last one:
+        // one directory bucket plus < interval gaps
+        public long firstPrimeAtLeast(long x) throws IOException {
+            if (count == 0) return -1;
+            
+            // Last checkpoint whose value is <= x, starting from x's value bucket
+            long clamped = Math.min(Math.max(x, 0), Math.max(limit, 0));
+            int lo = bucketCheckpoint[(int) (clamped >>> bucketShift)];
+            while (lo + 1 < checkpointValues.length && checkpointValues[lo + 1] <= x) {
+                lo++;
+            }
+            
+            long prime = checkpointValues[lo];
+            if (prime >= x) return prime;
+            
+            long remaining = Math.min(interval - 1, count - 1 - (long) lo * interval);
+            ByteBuffer codes = readCodes(lo);
+            for (long i = 0; i < remaining; i++) {
+                prime = nextPrime(codes, prime);
+                if (prime >= x) return prime;
+            }
+            return lo + 1 < checkpointValues.length ? checkpointValues[lo + 1] : -1;
+        }
+        
+        // Codes following a checkpoint: at most interval - 1 primes of up to 5 bytes each
+        private ByteBuffer readCodes(int checkpoint) throws IOException {
+            long start = checkpointOffsets[checkpoint];
+            long bytes = Math.min(5L * (interval - 1), indexOffset - start);
+            return readFully(channel, start, (int) bytes);
+        }
+        
+        private static long nextPrime(ByteBuffer codes, long prime) {
+            int code = codes.get() & 0xFF;
+            if (code == 0) code = codes.getInt();
+            return (prime == 2 ? 1 : prime) + 2L * code;
+        }
+        
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+    
+    // Flow.Publisher of prime batches (one long[] per sieved segment).
+    // Segments are sieved on the executor only while some subscriber has outstanding
+    // demand, and never more than `prefetch` batches ahead of the slowest subscriber.
+    // All subscribers share the same batches from batch 0; one that joins after batch 0
+    // has been released gets onError(IllegalStateException) rather than a truncated
+    // sequence. Once every subscriber has cancelled, no further segment is sieved. A
+    // failure while sieving, OutOfMemoryError included, is signalled to every subscriber.
+    static class PrimePublisher implements Flow.Publisher<long[]> {
+        static final int DEFAULT_SEGMENT_SIZE = 32768;
+        static final int DEFAULT_PREFETCH = 4;
+        
+        private final long limit;
+        private final int segmentSize;
+        private final int prefetch;
+        private final Executor executor;
+        
+        private final List<PrimeSubscription> subscriptions = new CopyOnWriteArrayList<>();
+        private final AtomicInteger wip = new AtomicInteger();
+        
+        // Drain state - only touched by the (serialized) drain loop
+        private final List<long[]> window = new ArrayList<>();
+        private long windowStart = 0;   // batch number of window.get(0)
+        private long produced = 0;      // batches sieved so far
+        private long nextLow = 0;       // first value of the next segment
+        private int[] basePrimes;
+        private boolean[] segment;
+        private boolean exhausted;
+        private Throwable failure;
+        
+        PrimePublisher(long limit) {
+            this(limit, DEFAULT_SEGMENT_SIZE, DEFAULT_PREFETCH, ForkJoinPool.commonPool());
+        }
+        
+        PrimePublisher(long limit, int segmentSize, int prefetch, Executor executor) {
+            if (segmentSize < 2 || prefetch < 1) {
+                throw new IllegalArgumentException("segmentSize must be >= 2 and prefetch >= 1");
+            }
+            requireBasePrimeTable(Math.max(limit, 0));
+            this.limit = limit;
+            this.segmentSize = segmentSize;
+            this.prefetch = prefetch;
+            this.executor = executor;
+            this.exhausted = limit < 2;
+        }
+        
+        @Override
+        public void subscribe(Flow.Subscriber<? super long[]> subscriber) {
+            if (subscriber == null) throw new NullPointerException("subscriber");
+            
+            // onSubscribe must return before the drain can see (and signal) this subscriber
+            PrimeSubscription subscription = new PrimeSubscription(subscriber);
+            subscriber.onSubscribe(subscription);
+            subscriptions.add(subscription);
+            signalDrain();
+        }
+        
+        private void signalDrain() {
+            if (wip.getAndIncrement() == 0) {
+                executor.execute(this::drain);
+            }
+        }
+        
+        private void drain() {
+            int missed = 1;
+            Error fatal = null;
+            do {
+                boolean progress;
+                try {
+                    do {
+                        progress = false;
+                        long minNext = produced;
+                        long target = produced;
+                        boolean active = false;
+                    
+                        for (PrimeSubscription s : subscriptions) {
+                            if (s.next < 0) {
+                                if (windowStart > 0 && s.badRequest == null) {
+                                    s.badRequest = new IllegalStateException("subscribed after batches 0-" 
+                                        + (windowStart - 1) + " were released; primes would be missing");
+                                }
+                                s.next = windowStart;
+                            }
+                        
+                            // Deliver whatever this subscriber has asked for and is already sieved
+                            while (!s.cancelled && s.badRequest == null 
+                                    && s.demand.get() > 0 && s.next < produced) {
+                                long[] batch = window.get((int) (s.next - windowStart));
+                                s.next++;
+                                if (s.demand.get() != Long.MAX_VALUE) s.demand.decrementAndGet();
+                                try {
+                                    s.subscriber.onNext(batch);
+                                } catch (Throwable t) {
+                                    // A throwing subscriber is dropped; the others keep flowing
+                                    s.cancelled = true;
+                                }
+                                progress = true;
+                            }
+                        
+                            if (!s.cancelled && s.badRequest != null) {
+                                s.cancelled = true;
+                                terminate(s, s.badRequest);
+                            } else if (!s.cancelled && failure != null) {
+                                s.cancelled = true;
+                                terminate(s, failure);
+                            } else if (!s.cancelled && exhausted && s.next == produced) {
+                                s.cancelled = true;
+                                terminate(s, null);
+                            }
+                        
+                            if (s.cancelled) {
+                                subscriptions.remove(s);
+                                continue;
+                            }
+                        
+                            active = true;
+                            minNext = Math.min(minNext, s.next);
+                            target = Math.max(target, s.next + Math.min(s.demand.get(), prefetch));
+                        }
+                    
+                        // Release batches every remaining subscriber has already seen
+                        while (windowStart < minNext) {
+                            window.remove(0);
+                            windowStart++;
+                        }
+                    
+                        // Sieve ahead only for outstanding demand, bounded by the prefetch window
+                        if (active && !exhausted && failure == null 
+                                && produced < target && produced - windowStart < prefetch) {
+                            try {
+                                sieveNextBatch();
+                            } catch (RuntimeException e) {
+                                failure = e;
+                            } catch (Error e) {
+                                failure = e;
+                                fatal = e;
+                            }
+                            progress = true;
+                        }
+                    } while (progress);
+                } finally {
+                    // Always account for this pass, or no later signal could start a drain
+                    missed = wip.addAndGet(-missed);
+                }
+            } while (missed != 0);
+            
+            // Subscribers have had onError; let the executor see the error too
+            if (fatal != null) throw fatal;
+        }
+        
+        // onComplete when error is null, otherwise onError; exceptions from either are ignored
+        private static void terminate(PrimeSubscription s, Throwable error) {
+            try {
+                if (error == null) {
+                    s.subscriber.onComplete();
+                } else {
+                    s.subscriber.onError(error);
+                }
+            } catch (Throwable ignored) {
+                // the subscription is already cancelled
+            }
+        }
+        
+        private void sieveNextBatch() {
+            if (basePrimes == null) {
+                basePrimes = collectBasePrimes(limit);
+                segment = new boolean[segmentSize];
+            }
+            
+            while (nextLow <= limit) {
+                long low = nextLow;
+                long high = Math.min(low + segmentSize - 1, limit);
+                nextLow = high + 1;
+                
+                long[] batch = primesInRange(low, high, basePrimes, segment);
+                if (batch.length > 0) {
+                    window.add(batch);
+                    produced++;
+                    break;
+                }
+            }
+            
+            if (nextLow > limit) {
+                exhausted = true;
+                segment = null;
+            }
+        }
+        
+        private final class PrimeSubscription implements Flow.Subscription {
+            final Flow.Subscriber<? super long[]> subscriber;
+            final AtomicLong demand = new AtomicLong();
+            volatile boolean cancelled;
+            volatile RuntimeException badRequest;
+            long next = -1;     // next batch number to deliver, assigned by drain
+            
+            PrimeSubscription(Flow.Subscriber<? super long[]> subscriber) {
+                this.subscriber = subscriber;
+            }
+            
+            @Override
+            public void request(long n) {
+                if (n <= 0) {
+                    badRequest = new IllegalArgumentException("non-positive request: " + n);
+                } else {
+                    demand.getAndUpdate(d -> d + n < 0 ? Long.MAX_VALUE : d + n);
+                }
+                signalDrain();
+            }
+            
+            @Override
+            public void cancel() {
+                cancelled = true;
+                signalDrain();
+            }
         }
     }
 